@@ -0,0 +1,62 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.utils.seed.DataSeeder;
+import study.querydsl.utils.seed.SeedProperties;
+
+import java.util.function.Function;
+
+/**
+ * 벤치마크 전체에서 공유하는 스프링 컨텍스트. 내장 H2(메모리) 에 members 명, teams 개 팀을 넣고 시작한다.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkContext {
+
+    @Param({"10000"})
+    public int members;
+
+    @Param({"100"})
+    public int teams;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=jmh");
+
+        SeedProperties seed = new SeedProperties();
+        seed.setMembers(members);
+        seed.setTeams(teams);
+        context.getBean(DataSeeder.class).seed(seed);
+
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * 한 번의 호출을 실제 요청처럼 하나의 읽기 전용 트랜잭션(= 하나의 영속성 컨텍스트) 안에서 실행한다.
+     */
+    public <T> T readOnly(Function<JPAQueryFactory, T> work) {
+        return readOnly.execute(status -> work.apply(new JPAQueryFactory(context.getBean(EntityManager.class))));
+    }
+}
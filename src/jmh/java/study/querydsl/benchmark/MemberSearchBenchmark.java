@@ -0,0 +1,83 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.domain.member.dto.MemberSearchCond;
+import study.querydsl.domain.member.dto.MemberTeamDto;
+import study.querydsl.domain.member.repository.MemberJpaRepository;
+import study.querydsl.domain.member.repository.MemberRepository;
+
+import java.util.List;
+
+/**
+ * 검색 경로 비교.
+ * <ul>
+ *     <li>MemberRepositoryImpl: search / searchPageSimple / searchPageComplex (team 이름은 TeamCache 로 바꾼다)</li>
+ *     <li>MemberJpaRepository: searchTeamJoin (같은 조건을 team join 으로 거른다)</li>
+ * </ul>
+ * 결과 캐시를 재는 일이 없도록 호출마다 조건(team, 나이 범위, 페이지)을 돌려 쓰고, jmh 프로필은 CountCache 를 끈다.
+ * (QueryShapeCache 는 결과가 아니라 직렬화한 JPQL 을 재사용하므로 실제 요청과 같이 켜 둔다)
+ */
+@State(Scope.Thread)
+public class MemberSearchBenchmark {
+
+    private static final int CONDITIONS = 64;
+
+    private MemberRepository memberRepository;
+    private MemberJpaRepository memberJpaRepository;
+    private MemberSearchCond[] conds;
+    private PageRequest[] pageRequests;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkContext context) {
+        memberRepository = context.getBean(MemberRepository.class);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+
+        conds = new MemberSearchCond[CONDITIONS];
+        pageRequests = new PageRequest[CONDITIONS];
+        for (int i = 0; i < CONDITIONS; i++) {
+            MemberSearchCond cond = new MemberSearchCond();
+            cond.setTeamName("team" + (i * 7 % context.teams));
+            cond.setAgeGoe(i * 13 % 50);
+            cond.setAgeLoe(cond.getAgeGoe() + 20 + i % 30);
+            conds[i] = cond;
+            pageRequests[i] = PageRequest.of(i % 3, 20);
+        }
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> search(BenchmarkContext context) {
+        MemberSearchCond cond = nextCond();
+        return context.readOnly(queryFactory -> memberRepository.search(cond));
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageSimple(BenchmarkContext context) {
+        int i = nextIndex();
+        return context.readOnly(queryFactory -> memberRepository.searchPageSimple(conds[i], pageRequests[i]));
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComplex(BenchmarkContext context) {
+        int i = nextIndex();
+        return context.readOnly(queryFactory -> memberRepository.searchPageComplex(conds[i], pageRequests[i]));
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchTeamJoin(BenchmarkContext context) {
+        MemberSearchCond cond = nextCond();
+        return context.readOnly(queryFactory -> memberJpaRepository.search(cond));
+    }
+
+    private MemberSearchCond nextCond() {
+        return conds[nextIndex()];
+    }
+
+    private int nextIndex() {
+        int i = next;
+        next = (i + 1) % CONDITIONS;
+        return i;
+    }
+}
@@ -0,0 +1,65 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.Projections;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.domain.member.dto.MemberDto;
+import study.querydsl.domain.member.dto.QMemberDto;
+
+import java.util.List;
+
+import static study.querydsl.domain.member.entity.QMember.member;
+
+/**
+ * QuerydslBasicTest 의 DTO 프로젝션 방식 비교. (setter / field / 생성자 / @QueryProjection)
+ */
+@State(Scope.Benchmark)
+public class ProjectionBenchmark {
+
+    @Param({"10", "50"})
+    public int ageLoe;
+
+    @Benchmark
+    public List<MemberDto> bean(BenchmarkContext context) {
+        return context.readOnly(queryFactory -> queryFactory
+                .select(Projections.bean(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .where(member.age.loe(ageLoe))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> fields(BenchmarkContext context) {
+        return context.readOnly(queryFactory -> queryFactory
+                .select(Projections.fields(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .where(member.age.loe(ageLoe))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> constructor(BenchmarkContext context) {
+        return context.readOnly(queryFactory -> queryFactory
+                .select(Projections.constructor(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .where(member.age.loe(ageLoe))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> queryProjection(BenchmarkContext context) {
+        return context.readOnly(queryFactory -> queryFactory
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .where(member.age.loe(ageLoe))
+                .fetch());
+    }
+}
@@ -0,0 +1,183 @@
+package study.querydsl.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.utils.seed.DataSeeder;
+import study.querydsl.utils.seed.SeedProperties;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * platform 스레드와 가상 스레드로 앱을 한 번씩 띄워 같은 부하를 주고 처리량과 지연 분포를 비교한다.
+ * <p>
+ * 내장 H2(jmh 프로파일)에 members 명을 넣고, concurrency 개의 클라이언트가 쉬지 않고 /v1~/v3 검색을 보낸다.
+ * warmup 초 동안의 요청은 버리고 seconds 초 동안의 요청만 센다. 시드와 요청 순서가 고정이라 같은 인자면 같은 부하다.
+ * <pre>
+ * ./gradlew threadModeComparison -Pcomparison="--members=100000 --concurrency=400 --seconds=30"
+ * </pre>
+ * 인자: members, teams, concurrency, warmup, seconds, modes(platform,virtual), tomcat-threads
+ */
+public class ThreadModeComparison {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int members = Integer.parseInt(options.getOrDefault("members", "100000"));
+        int teams = Integer.parseInt(options.getOrDefault("teams", "100"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "200"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "20"));
+        String tomcatThreads = options.getOrDefault("tomcat-threads", "200");
+
+        List<String> report = new ArrayList<>();
+        for (String mode : options.getOrDefault("modes", "platform,virtual").split(",")) {
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                    .run("--spring.profiles.active=jmh",
+                            "--server.port=0",
+                            "--server.tomcat.threads.max=" + tomcatThreads,
+                            "--spring.threads.virtual.enabled=" + "virtual".equals(mode),
+                            "--querydsl.n-plus-one.mode=off");
+            try {
+                SeedProperties seed = new SeedProperties();
+                seed.setMembers(members);
+                seed.setTeams(teams);
+                context.getBean(DataSeeder.class).seed(seed);
+
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                Result result = load(port, teams, concurrency, warmup, seconds);
+                report.add(String.format("%-8s %s", mode, result));
+            } finally {
+                context.close();
+            }
+        }
+
+        System.out.printf("%n=== members=%d, teams=%d, concurrency=%d, %ds (warmup %ds) ===%n",
+                members, teams, concurrency, seconds, warmup);
+        System.out.printf("%-8s %10s %10s %10s %10s %10s %8s%n",
+                "mode", "req/s", "p50(ms)", "p99(ms)", "p99.9(ms)", "max(ms)", "errors");
+        report.forEach(System.out::println);
+    }
+
+    private static Result load(int port, int teams, int concurrency, int warmup, int seconds) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        long measureFrom = System.nanoTime() + Duration.ofSeconds(warmup).toNanos();
+        long deadline = measureFrom + Duration.ofSeconds(seconds).toNanos();
+
+        List<long[]> latencies = new ArrayList<>();
+        LongAdder errors = new LongAdder();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Random random = new Random(i);
+            Recorder recorder = new Recorder();
+            Thread.ofVirtual().start(() -> {
+                try {
+                    while (true) {
+                        HttpRequest request = HttpRequest.newBuilder(uri(port, teams, random)).GET().build();
+                        long start = System.nanoTime();
+                        if (start >= deadline) {
+                            break;
+                        }
+                        boolean ok;
+                        try {
+                            ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        long end = System.nanoTime();
+                        if (start >= measureFrom && end <= deadline) {
+                            if (ok) {
+                                recorder.add(end - start);
+                            } else {
+                                errors.increment();
+                            }
+                        }
+                    }
+                } finally {
+                    synchronized (latencies) {
+                        latencies.add(recorder.toArray());
+                    }
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(all, errors.sum(), seconds);
+    }
+
+    private static URI uri(int port, int teams, Random random) {
+        String team = "team" + random.nextInt(teams);
+        int age = random.nextInt(90);
+        String query = switch (random.nextInt(3)) {
+            case 0 -> "/v1/members?teamName=" + team + "&ageGoe=" + age + "&ageLoe=" + (age + 5);
+            case 1 -> "/v2/members?teamName=" + team + "&page=" + random.nextInt(5) + "&size=20";
+            default -> "/v3/members?ageGoe=" + age + "&ageLoe=" + (age + 2) + "&page=" + random.nextInt(5) + "&size=20";
+        };
+        return URI.create("http://localhost:" + port + query);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int idx = arg.indexOf('=');
+                options.put(arg.substring(2, idx), arg.substring(idx + 1));
+            }
+        }
+        return options;
+    }
+
+    private static final class Recorder {
+
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private record Result(long[] sortedNanos, long errors, int seconds) {
+
+        private double percentileMillis(double percentile) {
+            if (sortedNanos.length == 0) {
+                return 0;
+            }
+            int idx = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+            return sortedNanos[Math.max(0, Math.min(idx, sortedNanos.length - 1))] / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%10.1f %10.2f %10.2f %10.2f %10.2f %8d",
+                    (double) sortedNanos.length / seconds,
+                    percentileMillis(0.5), percentileMillis(0.99), percentileMillis(0.999),
+                    percentileMillis(1.0), errors);
+        }
+    }
+}
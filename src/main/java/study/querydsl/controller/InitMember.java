@@ -1,45 +1,27 @@
 package study.querydsl.controller;
 
-import jakarta.annotation.PostConstruct;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
-import study.querydsl.domain.member.entity.Member;
-import study.querydsl.domain.team.entity.Team;
+import study.querydsl.utils.seed.DataSeeder;
+import study.querydsl.utils.seed.SeedProperties;
 
 @Profile("local")
 @Component
 @RequiredArgsConstructor
 public class InitMember {
 
-    private final InitMemberService initMemberService;
+    private final DataSeeder dataSeeder;
+    private final SeedProperties seedProperties;
 
-    @PostConstruct
+    // 기동이 끝난 뒤 백그라운드에서 넣는다. 데이터가 많아도 readiness 가 늦어지지 않는다.
+    @EventListener(ApplicationReadyEvent.class)
     public void init() {
-        initMemberService.init();
-    }
-
-    @Component
-    static class InitMemberService {
-        @PersistenceContext
-        private EntityManager em;
-
-        @Transactional
-        public void init() {
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
-
-            for (int i = 0; i < 100; i++) {
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member"+i, i, selectedTeam));
-            }
-
-        }
+        Thread seeder = new Thread(() -> dataSeeder.seed(seedProperties), "init-member");
+        seeder.setDaemon(true);
+        seeder.start();
     }
 
 }
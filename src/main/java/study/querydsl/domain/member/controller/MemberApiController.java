@@ -1,29 +1,63 @@
 package study.querydsl.domain.member.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import study.querydsl.domain.member.dto.MemberSearchCond;
 import study.querydsl.domain.member.dto.MemberTeamDto;
 import study.querydsl.domain.member.repository.MemberJpaRepository;
 import study.querydsl.domain.member.repository.MemberRepository;
+import study.querydsl.domain.member.repository.MemberSearchViewRepository;
+import study.querydsl.utils.support.KeysetCursor;
+import study.querydsl.utils.support.KeysetSlice;
+import study.querydsl.utils.timeout.QueryTimeouts;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberApiController {
 
+    static final int MAX_RANKED_SIZE = 100;
+    static final int MAX_KEYSET_SIZE = 100;
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberSearchViewRepository memberSearchViewRepository;
+    private final ObjectMapper objectMapper;
+    private final QueryTimeouts queryTimeouts;
 
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCond cond) {
         return memberJpaRepository.search(cond);
     }
 
+    /**
+     * v1 과 같은 검색 결과를 한 줄에 하나씩(NDJSON) 읽는 즉시 내려보낸다.
+     */
+    @GetMapping(value = "/v1/members/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody searchMemberV1Stream(MemberSearchCond cond) {
+        // 응답은 다른 스레드에서 쓰므로 요청의 쿼리 시간 예산을 넘겨준다.
+        QueryTimeouts.Budget budget = queryTimeouts.current();
+        return out -> {
+            try (QueryTimeouts.Scope ignored = queryTimeouts.attach(budget)) {
+                memberJpaRepository.searchStream(cond, row -> writeLine(out, row, budget));
+            }
+        };
+    }
+
     @GetMapping("/v2/members")
     public Page<MemberTeamDto> searchMemberV2(MemberSearchCond cond, Pageable pageable) {
         return memberRepository.searchPageSimple(cond, pageable);
@@ -33,4 +67,58 @@ public class MemberApiController {
     public Page<MemberTeamDto> searchMemberV3(MemberSearchCond cond, Pageable pageable) {
         return memberRepository.searchPageComplex(cond, pageable);
     }
+
+    /**
+     * after 는 이전 응답의 커서다. 여기서 한 번만 풀어서 넘기고, 잘못된 커서는 400 이다. size 는 1 ~ MAX_KEYSET_SIZE 로 맞춘다.
+     */
+    @GetMapping("/v4/members")
+    public KeysetSlice<MemberTeamDto> searchMemberV4(MemberSearchCond cond,
+                                                     @RequestParam(required = false) String after,
+                                                     @RequestParam(defaultValue = "20") int size) {
+        KeysetCursor<Integer> cursor;
+        try {
+            cursor = KeysetCursor.decode(after, Integer::valueOf);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + after, e);
+        }
+        return memberRepository.searchKeyset(cond, cursor, Math.max(1, Math.min(size, MAX_KEYSET_SIZE)));
+    }
+
+    /**
+     * usernameContains(없으면 usernamePrefix) 와 가까운 순으로 size 건. 자동 완성용. size 는 1 ~ MAX_RANKED_SIZE 로 맞춘다.
+     */
+    @GetMapping("/v2/members/ranked")
+    public List<MemberTeamDto> searchMemberRanked(MemberSearchCond cond,
+                                                  @RequestParam(defaultValue = "10") int size) {
+        return memberRepository.searchRanked(cond, Math.max(1, Math.min(size, MAX_RANKED_SIZE)));
+    }
+
+    /**
+     * member_search_view(읽기 모델) 한 테이블에서 검색한다. v3 와 같은 결과를 join 없이 낸다.
+     */
+    @GetMapping("/v5/members")
+    public Page<MemberTeamDto> searchMemberV5(MemberSearchCond cond, Pageable pageable) {
+        return memberSearchViewRepository.searchPage(cond, pageable);
+    }
+
+    /**
+     * total 없이 hasNext 만 내려준다. count 쿼리가 없다. (무한 스크롤)
+     */
+    @GetMapping("/v6/members")
+    public Slice<MemberTeamDto> searchMemberV6(MemberSearchCond cond, Pageable pageable) {
+        return memberRepository.searchSlice(cond, pageable);
+    }
+
+    private void writeLine(OutputStream out, Object row, QueryTimeouts.Budget budget) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(row));
+            out.write('\n');
+        } catch (IOException e) {
+            // 클라이언트가 끊었다. 커서를 닫기 전에 쿼리부터 취소해서 남은 row 를 끝까지 읽어 버리지 않게 한다.
+            if (budget != null) {
+                budget.cancel();
+            }
+            throw new UncheckedIOException(e);
+        }
+    }
 }
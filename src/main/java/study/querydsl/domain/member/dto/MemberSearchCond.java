@@ -1,12 +1,48 @@
 package study.querydsl.domain.member.dto;
 
 import lombok.Data;
+import study.querydsl.utils.metrics.QueryShape;
+
+import java.util.StringJoiner;
+
+import static org.springframework.util.StringUtils.hasText;
 
 @Data
-public class MemberSearchCond {
+public class MemberSearchCond implements QueryShape {
 
     private String username;
+    /** username 이 이 값으로 시작 (대소문자 구분) */
+    private String usernamePrefix;
+    /** username 에 이 값이 들어 있음 (대소문자 무시) */
+    private String usernameContains;
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+
+    /**
+     * 채워진 조건 이름을 + 로 이어 붙인다. 예) "username+ageGoe", 조건이 없으면 "none"
+     */
+    @Override
+    public String queryShape() {
+        StringJoiner shape = new StringJoiner("+").setEmptyValue("none");
+        if (hasText(username)) {
+            shape.add("username");
+        }
+        if (hasText(usernamePrefix)) {
+            shape.add("usernamePrefix");
+        }
+        if (hasText(usernameContains)) {
+            shape.add("usernameContains");
+        }
+        if (hasText(teamName)) {
+            shape.add("teamName");
+        }
+        if (ageGoe != null) {
+            shape.add("ageGoe");
+        }
+        if (ageLoe != null) {
+            shape.add("ageLoe");
+        }
+        return shape.toString();
+    }
 }
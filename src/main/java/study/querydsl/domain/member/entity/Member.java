@@ -8,6 +8,13 @@ import lombok.ToString;
 import study.querydsl.domain.team.entity.Team;
 
 @Entity
+@Table(indexes = {
+        // teamName(→ team_id in), teamName + age 범위
+        @Index(name = "idx_member_team_age", columnList = "team_id, age"),
+        @Index(name = "idx_member_username", columnList = "username"),
+        // team 조건 없이 age 범위만 있을 때, keyset 페이징(age, member_id)
+        @Index(name = "idx_member_age", columnList = "age, member_id")
+})
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
@@ -40,6 +47,19 @@ public class Member {
         }
     }
 
+    /**
+     * team 쪽 members 컬렉션은 건드리지 않고 FK 만 채운다. 대량 적재용. (team 은 getReference 프록시면 충분하다)
+     */
+    public static Member ofTeamReference(String username, int age, Team team) {
+        Member member = new Member(username, age);
+        member.team = team;
+        return member;
+    }
+
+    public void changeAge(int age) {
+        this.age = age;
+    }
+
     public void changeTeam(Team team) {
         this.team = team;
         team.getMembers().add(this);
@@ -0,0 +1,41 @@
+package study.querydsl.domain.member.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * member 검색용 읽기 모델. member 와 team 을 미리 펼쳐 둔 테이블이라 검색할 때 join 이 필요 없다.
+ * <p>
+ * 애플리케이션에서 직접 쓰지 않는다. Member/Team 이 flush 될 때 MemberSearchViewUpdater 가 같은 트랜잭션에서 고치고,
+ * 어긋났을 때는 MemberSearchViewRebuilder 로 다시 만든다.
+ */
+@Entity
+@Immutable
+@Table(name = "member_search_view", indexes = {
+        @Index(name = "idx_msv_team_name_age", columnList = "team_name, age"),
+        @Index(name = "idx_msv_team_id", columnList = "team_id"),
+        @Index(name = "idx_msv_username", columnList = "username"),
+        @Index(name = "idx_msv_age", columnList = "age, member_id")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class MemberSearchView {
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    private String username;
+    private int age;
+
+    @Column(name = "team_id")
+    private Long teamId;
+
+    @Column(name = "team_name")
+    private String teamName;
+}
@@ -0,0 +1,45 @@
+package study.querydsl.domain.member.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+
+/**
+ * username 부분 문자열 검색용 색인. username(소문자) 의 각 위치에서 시작하는 최대 3글자(gram) 와 member id 의 쌍이다.
+ * 예) "kim" -> "kim", "im", "m"
+ * <p>
+ * 애플리케이션에서 직접 쓰지 않는다. Member 가 flush 될 때 MemberUsernameGramUpdater 가 같은 트랜잭션에서 고친다.
+ * 기본키가 (gram, member_id) 라서 gram 으로 찾으면 바로 member id 가 나온다.
+ */
+@Entity
+@Immutable
+@IdClass(MemberUsernameGram.Key.class)
+@Table(name = "member_username_gram", indexes = {
+        @Index(name = "idx_mug_member_id", columnList = "member_id")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class MemberUsernameGram {
+
+    @Id
+    @Column(length = 3)
+    private String gram;
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private String gram;
+        private Long memberId;
+    }
+}
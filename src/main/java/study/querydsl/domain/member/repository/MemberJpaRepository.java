@@ -3,16 +3,32 @@ package study.querydsl.domain.member.repository;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
 import org.springframework.stereotype.Repository;
 import study.querydsl.domain.member.dto.MemberSearchCond;
 import study.querydsl.domain.member.dto.MemberTeamDto;
 import study.querydsl.domain.member.dto.QMemberTeamDto;
 import study.querydsl.domain.member.entity.Member;
-
+import study.querydsl.utils.cache.QueryShapeCache;
+import study.querydsl.utils.support.InLists;
+import study.querydsl.utils.support.OptionalJoins;
+import study.querydsl.utils.support.ReadOnlyQuery;
+import study.querydsl.utils.timeout.QueryTimeouts;
+import study.querydsl.utils.timeout.TimedJPAQueryFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.domain.member.entity.QMember.member;
@@ -21,12 +37,17 @@ import static study.querydsl.domain.team.entity.QTeam.team;
 @Repository
 public class MemberJpaRepository {
 
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final String SEARCH_SHAPE = "MemberJpaRepository.search";
+
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final QueryShapeCache queryShapeCache;
 
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em, QueryShapeCache queryShapeCache, QueryTimeouts queryTimeouts) {
         this.em = em;
-        this.queryFactory = new JPAQueryFactory(em);
+        this.queryFactory = new TimedJPAQueryFactory(em, () -> queryTimeouts);
+        this.queryShapeCache = queryShapeCache;
     }
 
     public void save(Member member) {
@@ -38,6 +59,38 @@ public class MemberJpaRepository {
         return Optional.ofNullable(member);
     }
 
+    /**
+     * id 목록으로 한꺼번에 찾는다. 결과는 입력 순서이고 없는(또는 삭제된) id 는 빠진다.
+     * 영속성 컨텍스트에 이미 있는 member 는 쿼리하지 않고, 나머지는 InLists.MAX_SIZE 개씩 in 쿼리로 읽는다.
+     * (5,000 개면 512 개씩 10 번, in 목록 길이는 hibernate.query.in_clause_parameter_padding 으로 맞춘다)
+     */
+    public List<Member> findByIds(Collection<Long> ids) {
+        List<Member> loaded = em.unwrap(Session.class)
+                .byMultipleIds(Member.class)
+                .enableSessionCheck(true)
+                .withBatchSize(InLists.MAX_SIZE)
+                .multiLoad(new ArrayList<>(new LinkedHashSet<>(ids)));
+        List<Member> result = new ArrayList<>(loaded.size());
+        for (Member found : loaded) {
+            if (found != null) {
+                result.add(found);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * username 목록으로 한꺼번에 찾는다. username 은 유일하지 않아서 영속성 컨텍스트만으로는 답을 알 수 없으므로 항상 쿼리한다.
+     * (이미 로딩된 member 는 Hibernate 가 같은 인스턴스로 돌려준다)
+     */
+    public List<Member> findByUsernames(Collection<String> usernames) {
+        List<Member> result = new ArrayList<>();
+        for (List<String> chunk : InLists.chunks(usernames)) {
+            result.addAll(queryFactory.selectFrom(member).where(member.username.in(chunk)).fetch());
+        }
+        return result;
+    }
+
     public List<Member> findAll() {
         return em.createQuery("select m from Member m", Member.class)
                 .getResultList();
@@ -66,34 +119,36 @@ public class MemberJpaRepository {
 
         BooleanBuilder builder = new BooleanBuilder();
         if (hasText(cond.getUsername())) {
-            builder.and(member.username.eq(cond.getUsername()));
+            builder.and(MemberSearchShape.USERNAME_EQ);
         }
         if (hasText(cond.getTeamName())) {
-            builder.and(team.name.eq(cond.getTeamName()));
+            builder.and(MemberSearchShape.TEAM_NAME_EQ);
         }
         if (cond.getAgeGoe() != null) {
-            builder.and(member.age.goe(cond.getAgeGoe()));
+            builder.and(MemberSearchShape.AGE_GOE_COND);
         }
         if (cond.getAgeLoe() != null) {
-            builder.and(member.age.loe(cond.getAgeLoe()));
+            builder.and(MemberSearchShape.AGE_LOE_COND);
         }
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(builder)
-                .fetch();
+        if (hasText(cond.getUsernamePrefix())) {
+            builder.and(MemberSearchShape.USERNAME_PREFIX_COND);
+        }
+        if (hasText(cond.getUsernameContains())) {
+            builder.and(MemberSearchShape.usernameContainsCond(cond.getUsernameContains()));
+        }
+        // where 파라미터 방식(search)과 같은 shape 로 정규화되어 같은 JPQL 을 재사용한다.
+        return queryShapeCache.fetch(em, SEARCH_SHAPE, this::searchShape,
+                MemberSearchShape.bindings(cond), builder);
     }
 
 
     public List<MemberTeamDto> search(MemberSearchCond cond) {
-        return queryFactory
+        return queryShapeCache.fetch(em, SEARCH_SHAPE, this::searchShape,
+                MemberSearchShape.bindings(cond), MemberSearchShape.conditions(cond));
+    }
+
+    private JPAQuery<MemberTeamDto> searchShape(Predicate[] where) {
+        return OptionalJoins.apply(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -102,26 +157,56 @@ public class MemberJpaRepository {
                         team.name.as("teamName")
                 ))
                 .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(cond.getUsername()),
-                        teamNameEq(cond.getTeamName()),
-                        ageGoe(cond.getAgeGoe()),
-                        ageLoe(cond.getAgeLoe())
-                )
-                .fetch();
+                .where(where), MemberSearchShape.TEAM_JOIN);
     }
 
+    /**
+     * search 와 같은 결과를 List 로 모으지 않고 한 건씩 넘겨준다.
+     * JDBC 에서 fetch size 만큼씩 읽는다. DTO 프로젝션이라 영속성 컨텍스트에 쌓이는 것이 없으므로 결과 크기와 상관없이 메모리가 일정하다.
+     * (호출한 쪽 트랜잭션의 영속성 컨텍스트는 건드리지 않는다)
+     */
+    @ReadOnlyQuery
+    public void searchStream(MemberSearchCond cond, Consumer<MemberTeamDto> action) {
+        JPAQuery<MemberTeamDto> query = OptionalJoins.apply(queryFactory
+                        .select(new QMemberTeamDto(
+                                member.id.as("memberId"),
+                                member.username,
+                                member.age,
+                                team.id.as("teamId"),
+                                team.name.as("teamName")
+                        ))
+                        .from(member)
+                        .where(
+                                usernameEq(cond.getUsername()),
+                                MemberSearchShape.usernamePrefix(member.username, cond.getUsernamePrefix()),
+                                MemberSearchShape.usernameContains(member.id, member.username, cond.getUsernameContains()),
+                                teamNameEq(cond.getTeamName()),
+                                ageGoe(cond.getAgeGoe()),
+                                ageLoe(cond.getAgeLoe())
+                        ), MemberSearchShape.TEAM_JOIN)
+                .setHint(HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HINT_READ_ONLY, true);
+
+        try (Stream<MemberTeamDto> stream = query.stream()) {
+            stream.forEach(action);
+        }
+    }
+
+    /**
+     * team 은 teamName 조건이 있을 때만 join 한다.
+     */
+    @ReadOnlyQuery
     public List<Member> searchMember(MemberSearchCond cond) {
-        return queryFactory
+        return OptionalJoins.apply(queryFactory
                 .selectFrom(member)
-                .leftJoin(member.team, team)
                 .where(
                         usernameEq(cond.getUsername()),
+                        MemberSearchShape.usernamePrefix(member.username, cond.getUsernamePrefix()),
+                        MemberSearchShape.usernameContains(member.id, member.username, cond.getUsernameContains()),
                         teamNameEq(cond.getTeamName()),
                         ageGoe(cond.getAgeGoe()),
                         ageLoe(cond.getAgeLoe())
-                )
+                ), MemberSearchShape.TEAM_JOIN)
                 .fetch();
     }
 
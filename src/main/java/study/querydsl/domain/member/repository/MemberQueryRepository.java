@@ -1,29 +1,40 @@
 package study.querydsl.domain.member.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
 import org.springframework.stereotype.Repository;
 import study.querydsl.domain.member.dto.MemberSearchCond;
 import study.querydsl.domain.member.dto.MemberTeamDto;
 import study.querydsl.domain.member.dto.QMemberTeamDto;
+import study.querydsl.utils.cache.QueryShapeCache;
+import study.querydsl.utils.support.OptionalJoins;
 
 import java.util.List;
 
-import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.domain.member.entity.QMember.member;
 import static study.querydsl.domain.team.entity.QTeam.team;
 
 @Repository
 public class MemberQueryRepository {
 
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final QueryShapeCache queryShapeCache;
 
-    public MemberQueryRepository(EntityManager em) {
+    public MemberQueryRepository(EntityManager em, QueryShapeCache queryShapeCache) {
+        this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.queryShapeCache = queryShapeCache;
     }
     public List<MemberTeamDto> search(MemberSearchCond cond) {
-        return queryFactory
+        return queryShapeCache.fetch(em, "MemberQueryRepository.search", this::searchShape,
+                MemberSearchShape.bindings(cond), MemberSearchShape.conditions(cond));
+    }
+
+    private JPAQuery<MemberTeamDto> searchShape(Predicate[] where) {
+        return OptionalJoins.apply(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -32,29 +43,6 @@ public class MemberQueryRepository {
                         team.name.as("teamName")
                 ))
                 .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(cond.getUsername()),
-                        teamNameEq(cond.getTeamName()),
-                        ageGoe(cond.getAgeGoe()),
-                        ageLoe(cond.getAgeLoe())
-                )
-                .fetch();
-    }
-
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+                .where(where), MemberSearchShape.TEAM_JOIN);
     }
 }
@@ -2,8 +2,11 @@ package study.querydsl.domain.member.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import study.querydsl.domain.member.dto.MemberSearchCond;
 import study.querydsl.domain.member.dto.MemberTeamDto;
+import study.querydsl.utils.support.KeysetCursor;
+import study.querydsl.utils.support.KeysetSlice;
 
 import java.util.List;
 
@@ -13,4 +16,10 @@ public interface MemberRepositoryCustom {
     Page<MemberTeamDto> searchPageSimple(MemberSearchCond cond, Pageable pageable);
 
     Page<MemberTeamDto> searchPageComplex(MemberSearchCond cond, Pageable pageable);
+
+    Slice<MemberTeamDto> searchSlice(MemberSearchCond cond, Pageable pageable);
+
+    KeysetSlice<MemberTeamDto> searchKeyset(MemberSearchCond cond, KeysetCursor<Integer> after, int size);
+
+    List<MemberTeamDto> searchRanked(MemberSearchCond cond, int size);
 }
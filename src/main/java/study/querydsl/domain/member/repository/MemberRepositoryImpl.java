@@ -1,126 +1,233 @@
 package study.querydsl.domain.member.repository;
 
-import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
 import com.querydsl.core.types.dsl.BooleanExpression;
-import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.NumberExpression;
 import com.querydsl.jpa.impl.JPAQuery;
-import com.querydsl.jpa.impl.JPAQueryFactory;
-import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
-import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.util.Assert;
 import study.querydsl.domain.member.dto.MemberSearchCond;
 import study.querydsl.domain.member.dto.MemberTeamDto;
-import study.querydsl.domain.member.dto.QMemberTeamDto;
 import study.querydsl.domain.member.entity.Member;
+import study.querydsl.domain.member.view.UsernameGrams;
+import study.querydsl.domain.team.repository.TeamCache;
+import study.querydsl.utils.support.KeysetCursor;
+import study.querydsl.utils.support.KeysetSlice;
+import study.querydsl.utils.support.Querydsl4RepositorySupport;
+import study.querydsl.utils.support.ReadOnlyQuery;
 
 import java.util.List;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.domain.member.entity.QMember.member;
-import static study.querydsl.domain.team.entity.QTeam.team;
 
-public class MemberRepositoryImpl implements MemberRepositoryCustom {
+/**
+ * team 은 join 하지 않는다. teamName 조건은 TeamCache 로 id 목록으로 바꿔 member.team_id 로 거르고,
+ * 결과의 teamName 도 TeamCache 에서 채운다.
+ */
+@ReadOnlyQuery
+public class MemberRepositoryImpl extends Querydsl4RepositorySupport implements MemberRepositoryCustom {
 
-    private final JPAQueryFactory queryFactory;
+    // 이 offset 부터는 건너뛰는 row 를 DTO 로 읽지 않고 id 인덱스에서만 건너뛴다.
+    static final long DEFERRED_JOIN_MIN_OFFSET = 1000;
 
-    public MemberRepositoryImpl(EntityManager em) {
-        this.queryFactory = new JPAQueryFactory(em);
+    private TeamCache teamCache;
+
+    public MemberRepositoryImpl() {
+        super(Member.class);
+    }
+
+    @Autowired
+    public void setTeamCache(TeamCache teamCache) {
+        Assert.notNull(teamCache, "TeamCache must not be null!!");
+        this.teamCache = teamCache;
     }
 
 
     @Override
     public List<MemberTeamDto> search(MemberSearchCond cond) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(cond.getUsername()),
-                        teamNameEq(cond.getTeamName()),
-                        ageGoe(cond.getAgeGoe()),
-                        ageLoe(cond.getAgeLoe())
-                )
-                .fetch();
+        List<Long> teamIds = teamIds(cond.getTeamName());
+        if (teamIds != null && teamIds.isEmpty()) {
+            return List.of();
+        }
+        List<MemberTeamDto> content = fetchShape("MemberRepositoryImpl.search", where -> select(memberTeamDto())
+                        .from(member)
+                        .where(where),
+                MemberSearchShape.bindingsByTeamId(cond, teamIds), MemberSearchShape.conditionsByTeamId(cond));
+        return withTeamNames(content);
     }
 
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCond cond, Pageable pageable) {
-        QueryResults<MemberTeamDto> results = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
+        List<Long> teamIds = teamIds(cond.getTeamName());
+        if (teamIds != null && teamIds.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+        JPAQuery<MemberTeamDto> query = select(memberTeamDto())
                 .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(cond.getUsername()),
-                        teamNameEq(cond.getTeamName()),
-                        ageGoe(cond.getAgeGoe()),
-                        ageLoe(cond.getAgeLoe())
-                )
+                .where(conditions(cond, teamIds));
+        List<MemberTeamDto> content = fetchContent(query
                 .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetchResults();
-        List<MemberTeamDto> content = results.getResults();
-        long total = results.getTotal();
+                .limit(pageable.getPageSize()));
+        long total = cachedCount(countQuery(query));
 
-        return new PageImpl<>(content, pageable, total);
+        return new PageImpl<>(withTeamNames(content), pageable, total);
     }
 
+    /**
+     * offset 이 DEFERRED_JOIN_MIN_OFFSET 이상이면 id 만 먼저 페이징하고 그 id 로 DTO 를 읽는다. (deferred join)
+     * 두 방식 모두 pageable 의 sort + id 로 정렬하므로 경계 페이지에서 순서가 바뀌지 않는다.
+     */
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCond cond, Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
+        List<Long> teamIds = teamIds(cond.getTeamName());
+        if (teamIds != null && teamIds.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+        if (pageable.isPaged() && pageable.getOffset() >= DEFERRED_JOIN_MIN_OFFSET) {
+            Page<MemberTeamDto> page = applyPagination(pageable,
+                    query -> query
+                            .from(member)
+                            .where(conditions(cond, teamIds)),
+                    query -> query
+                            .select(memberTeamDto())
+                            .from(member),
+                    MemberTeamDto::getMemberId);
+            withTeamNames(page.getContent());
+            return page;
+        }
+        JPAQuery<MemberTeamDto> query = select(memberTeamDto())
                 .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(cond.getUsername()),
-                        teamNameEq(cond.getTeamName()),
-                        ageGoe(cond.getAgeGoe()),
-                        ageLoe(cond.getAgeLoe())
-                )
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetch();
+                .where(conditions(cond, teamIds));
+        JPAQuery<Long> countQuery = countQuery(query);
+        applySorting(pageable.getSort(), query);
+        if (pageable.isPaged()) {
+            query.offset(pageable.getOffset()).limit(pageable.getPageSize());
+        }
+        Page<MemberTeamDto> page = fetchPage(pageable, query, countQuery);
+
+        withTeamNames(page.getContent());
+        return page;
+    }
+
+    /**
+     * count 쿼리 없이 다음 페이지 유무만 알려준다.
+     */
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCond cond, Pageable pageable) {
+        List<Long> teamIds = teamIds(cond.getTeamName());
+        if (teamIds != null && teamIds.isEmpty()) {
+            return new SliceImpl<>(List.of(), pageable, false);
+        }
+        Slice<MemberTeamDto> slice = applySlice(pageable, query -> query
+                .select(memberTeamDto())
+                .from(member)
+                .where(conditions(cond, teamIds)));
+        withTeamNames(slice.getContent());
+        return slice;
+    }
+
+    @Override
+    public KeysetSlice<MemberTeamDto> searchKeyset(MemberSearchCond cond, KeysetCursor<Integer> after, int size) {
+        List<Long> teamIds = teamIds(cond.getTeamName());
+        if (teamIds != null && teamIds.isEmpty()) {
+            return new KeysetSlice<>(List.of(), null, false);
+        }
+        KeysetSlice<MemberTeamDto> slice = applyKeyset(size, member.age, member.id,
+                after,
+                dto -> KeysetCursor.of(dto.getAge(), dto.getMemberId()),
+                query -> query
+                        .select(memberTeamDto())
+                        .from(member)
+                        .where(conditions(cond, teamIds))
+        );
+        withTeamNames(slice.getContent());
+        return slice;
+    }
+
+    /**
+     * usernameContains(없으면 usernamePrefix) 검색어와 가까운 순으로 size 건을 돌려준다.
+     * 같은 username, 검색어로 시작하는 username, 중간에 들어 있는 username 순이고 같은 순위면 짧은 username 이 먼저다.
+     * 후보는 인덱스(member_username_gram, username)로 고르고 정렬은 후보에만 한다.
+     */
+    @Override
+    public List<MemberTeamDto> searchRanked(MemberSearchCond cond, int size) {
+        String term = hasText(cond.getUsernameContains()) ? cond.getUsernameContains() : cond.getUsernamePrefix();
+        Assert.hasText(term, "Ranked search needs usernameContains or usernamePrefix!!");
+        Assert.isTrue(size > 0, "Ranked search size must be positive!!");
+        List<Long> teamIds = teamIds(cond.getTeamName());
+        if (teamIds != null && teamIds.isEmpty()) {
+            return List.of();
+        }
+        String normalized = UsernameGrams.normalize(term);
+        NumberExpression<Integer> rank = new CaseBuilder()
+                .when(member.username.lower().eq(normalized)).then(0)
+                .when(member.username.lower().startsWith(normalized)).then(1)
+                .otherwise(2);
+
+        List<MemberTeamDto> content = fetchContent(select(memberTeamDto())
+                .from(member)
+                .where(conditions(cond, teamIds))
+                .orderBy(rank.asc(), member.username.length().asc(), member.username.asc(), member.id.asc())
+                .limit(size));
+        return withTeamNames(content);
+    }
 
-        JPAQuery<Member> countQuery = queryFactory
-                .selectFrom(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(cond.getUsername()),
-                        teamNameEq(cond.getTeamName()),
-                        ageGoe(cond.getAgeGoe()),
-                        ageLoe(cond.getAgeLoe())
-                );
+    /**
+     * 검색 조건을 where 절 조건으로 바꾼다. 값이 없는 조건은 null 이라 where 에서 빠진다.
+     * teamName 은 teamIds(TeamCache 로 바꾼 id 목록)로 거른다.
+     */
+    private Predicate[] conditions(MemberSearchCond cond, List<Long> teamIds) {
+        return new Predicate[]{
+                usernameEq(cond.getUsername()),
+                MemberSearchShape.usernamePrefix(member.username, cond.getUsernamePrefix()),
+                MemberSearchShape.usernameContains(member.id, member.username, cond.getUsernameContains()),
+                teamIdIn(teamIds),
+                ageGoe(cond.getAgeGoe()),
+                ageLoe(cond.getAgeLoe())
+        };
+    }
+
+    /**
+     * teamName 은 비워 두고 member.team_id 만 읽는다. (team join 없음)
+     */
+    private Expression<MemberTeamDto> memberTeamDto() {
+        return Projections.fields(MemberTeamDto.class,
+                member.id.as("memberId"),
+                member.username,
+                member.age,
+                member.team.id.as("teamId")
+        );
+    }
+
+    private List<MemberTeamDto> withTeamNames(List<MemberTeamDto> content) {
+        for (MemberTeamDto dto : content) {
+            dto.setTeamName(teamCache.nameOf(dto.getTeamId()));
+        }
+        return content;
+    }
 
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
-//        return new PageImpl<>(content, pageable, total);
+    /**
+     * teamName 조건이 없으면 null, 있는데 해당 team 이 없으면 빈 목록.
+     */
+    private List<Long> teamIds(String teamName) {
+        return hasText(teamName) ? teamCache.idsOf(teamName) : null;
     }
 
     private BooleanExpression usernameEq(String username) {
         return hasText(username) ? member.username.eq(username) : null;
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+    private BooleanExpression teamIdIn(List<Long> teamIds) {
+        return teamIds != null ? member.team.id.in(teamIds) : null;
     }
 
     private BooleanExpression ageGoe(Integer ageGoe) {
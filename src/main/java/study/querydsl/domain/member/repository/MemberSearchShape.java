@@ -0,0 +1,211 @@
+package study.querydsl.domain.member.repository;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.core.types.dsl.StringExpression;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.JPQLTemplates;
+import study.querydsl.domain.member.dto.MemberSearchCond;
+import study.querydsl.domain.member.view.UsernameGrams;
+import study.querydsl.utils.support.OptionalJoins;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.domain.member.entity.QMember.member;
+import static study.querydsl.domain.member.entity.QMemberUsernameGram.memberUsernameGram;
+import static study.querydsl.domain.team.entity.QTeam.team;
+
+/**
+ * MemberSearchCond 조건을 값 대신 Param 으로 만든 고정 조건식.
+ * 조건식 객체는 한 번만 만들고, 요청마다 어떤 조건을 쓸지와 Param 값만 정한다. (QueryShapeCache 참고)
+ */
+final class MemberSearchShape {
+
+    static final Param<String> USERNAME = new Param<>(String.class, "username");
+    static final Param<String> TEAM_NAME = new Param<>(String.class, "teamName");
+    @SuppressWarnings("rawtypes")
+    static final Param<Collection> TEAM_IDS = new Param<>(Collection.class, "teamIds");
+    static final Param<Integer> AGE_GOE = new Param<>(Integer.class, "ageGoe");
+    static final Param<Integer> AGE_LOE = new Param<>(Integer.class, "ageLoe");
+    static final Param<String> PREFIX_FROM = new Param<>(String.class, "prefixFrom");
+    static final Param<String> PREFIX_TO = new Param<>(String.class, "prefixTo");
+    @SuppressWarnings("rawtypes")
+    static final Param<Collection> GRAMS = new Param<>(Collection.class, "grams");
+    static final Param<Long> GRAM_COUNT = new Param<>(Long.class, "gramCount");
+    static final Param<String> CONTAINS_PATTERN = new Param<>(String.class, "containsPattern");
+    private static final String LIKE_ESCAPE = String.valueOf(JPQLTemplates.DEFAULT_ESCAPE);
+    static final Param<String> GRAM_FROM = new Param<>(String.class, "gramFrom");
+    static final Param<String> GRAM_TO = new Param<>(String.class, "gramTo");
+
+    // like 'x%' 대신 범위 조건으로 써서 username 인덱스를 탄다.
+    private static final char PREFIX_END = Character.MAX_VALUE;
+
+    // team 을 참조할 때만 붙는 left join. team.id 는 member.team_id(FK) 로 바뀐다.
+    static final OptionalJoins.Join TEAM_JOIN = OptionalJoins.leftJoin(member.team, team, team.id);
+
+    static final BooleanExpression USERNAME_EQ = member.username.eq(USERNAME);
+    static final BooleanExpression TEAM_NAME_EQ = team.name.eq(TEAM_NAME);
+    // team join 없이 member.team_id(FK) 컬럼으로 거른다. (TeamCache 로 이름을 id 로 바꿔서 쓴다)
+    static final BooleanExpression TEAM_ID_IN = Expressions.booleanOperation(Ops.IN, member.team.id, TEAM_IDS);
+    static final BooleanExpression AGE_GOE_COND = member.age.goe(AGE_GOE);
+    static final BooleanExpression AGE_LOE_COND = member.age.loe(AGE_LOE);
+    static final BooleanExpression USERNAME_PREFIX_COND = usernamePrefix(member.username, PREFIX_FROM, PREFIX_TO);
+    static final BooleanExpression USERNAME_CONTAINS_COND =
+            usernameContains(member.id, member.username, GRAMS, GRAM_COUNT, CONTAINS_PATTERN);
+    static final BooleanExpression USERNAME_CONTAINS_SHORT_COND = usernameContainsShort(member.id, GRAM_FROM, GRAM_TO);
+
+    private MemberSearchShape() {
+    }
+
+    static Predicate[] conditions(MemberSearchCond cond) {
+        return new Predicate[]{
+                hasText(cond.getUsername()) ? USERNAME_EQ : null,
+                hasText(cond.getTeamName()) ? TEAM_NAME_EQ : null,
+                cond.getAgeGoe() != null ? AGE_GOE_COND : null,
+                cond.getAgeLoe() != null ? AGE_LOE_COND : null,
+                hasText(cond.getUsernamePrefix()) ? USERNAME_PREFIX_COND : null,
+                hasText(cond.getUsernameContains()) ? usernameContainsCond(cond.getUsernameContains()) : null
+        };
+    }
+
+    static BooleanExpression usernameContainsCond(String text) {
+        return isShort(UsernameGrams.normalize(text)) ? USERNAME_CONTAINS_SHORT_COND : USERNAME_CONTAINS_COND;
+    }
+
+    /**
+     * teamName 조건을 TEAM_ID_IN 으로 바꾼 조건. team 을 join 하지 않는 쿼리에서 쓴다.
+     */
+    static Predicate[] conditionsByTeamId(MemberSearchCond cond) {
+        Predicate[] conditions = conditions(cond);
+        conditions[1] = hasText(cond.getTeamName()) ? TEAM_ID_IN : null;
+        return conditions;
+    }
+
+    static Map<ParamExpression<?>, Object> bindingsByTeamId(MemberSearchCond cond, Collection<Long> teamIds) {
+        Map<ParamExpression<?>, Object> bindings = bindings(cond);
+        if (bindings.remove(TEAM_NAME) != null) {
+            bindings.put(TEAM_IDS, teamIds);
+        }
+        return bindings;
+    }
+
+    static Map<ParamExpression<?>, Object> bindings(MemberSearchCond cond) {
+        Map<ParamExpression<?>, Object> bindings = new HashMap<>();
+        if (hasText(cond.getUsername())) {
+            bindings.put(USERNAME, cond.getUsername());
+        }
+        if (hasText(cond.getTeamName())) {
+            bindings.put(TEAM_NAME, cond.getTeamName());
+        }
+        if (cond.getAgeGoe() != null) {
+            bindings.put(AGE_GOE, cond.getAgeGoe());
+        }
+        if (cond.getAgeLoe() != null) {
+            bindings.put(AGE_LOE, cond.getAgeLoe());
+        }
+        if (hasText(cond.getUsernamePrefix())) {
+            bindings.put(PREFIX_FROM, cond.getUsernamePrefix());
+            bindings.put(PREFIX_TO, cond.getUsernamePrefix() + PREFIX_END);
+        }
+        if (hasText(cond.getUsernameContains())) {
+            String text = UsernameGrams.normalize(cond.getUsernameContains());
+            if (isShort(text)) {
+                bindings.put(GRAM_FROM, text);
+                bindings.put(GRAM_TO, text + PREFIX_END);
+            } else {
+                Set<String> grams = UsernameGrams.query(text);
+                bindings.put(GRAMS, grams);
+                bindings.put(GRAM_COUNT, (long) grams.size());
+                bindings.put(CONTAINS_PATTERN, containsPattern(text));
+            }
+        }
+        return bindings;
+    }
+
+    /**
+     * Param 없이 값으로 만든 username 시작 조건. 값이 비어 있으면 null.
+     */
+    static BooleanExpression usernamePrefix(StringExpression username, String prefix) {
+        return hasText(prefix)
+                ? usernamePrefix(username, Expressions.constant(prefix), Expressions.constant(prefix + PREFIX_END))
+                : null;
+    }
+
+    /**
+     * Param 없이 값으로 만든 username 포함 조건. 값이 비어 있으면 null.
+     */
+    static BooleanExpression usernameContains(NumberExpression<Long> id, StringExpression username, String text) {
+        if (!hasText(text)) {
+            return null;
+        }
+        String normalized = UsernameGrams.normalize(text);
+        if (isShort(normalized)) {
+            return usernameContainsShort(id,
+                    Expressions.constant(normalized), Expressions.constant(normalized + PREFIX_END));
+        }
+        Set<String> grams = UsernameGrams.query(normalized);
+        return usernameContains(id, username, Expressions.constant(grams),
+                Expressions.constant((long) grams.size()), Expressions.constant(containsPattern(normalized)));
+    }
+
+    private static BooleanExpression usernamePrefix(StringExpression username,
+                                                    Expression<String> from,
+                                                    Expression<String> to) {
+        return username.goe(from).and(username.lt(to));
+    }
+
+    /**
+     * 검색어의 3-gram 을 모두 가진 member 만 후보로 고르고(member_username_gram 기본키로 찾는다),
+     * gram 순서까지 맞는지는 후보에만 like 로 확인한다.
+     */
+    private static BooleanExpression usernameContains(NumberExpression<Long> id,
+                                                      StringExpression username,
+                                                      Expression<?> grams,
+                                                      Expression<Long> gramCount,
+                                                      Expression<String> pattern) {
+        return id.in(JPAExpressions
+                        .select(memberUsernameGram.memberId)
+                        .from(memberUsernameGram)
+                        .where(Expressions.booleanOperation(Ops.IN, memberUsernameGram.gram, grams))
+                        .groupBy(memberUsernameGram.memberId)
+                        .having(memberUsernameGram.gram.count().eq(gramCount)))
+                .and(username.lower().like(pattern));
+    }
+
+    /**
+     * 3글자 미만 검색어는 그 값으로 시작하는 gram 을 가진 member 를 찾는다.
+     * gram 은 username 의 각 위치에서 시작하므로 like 로 다시 확인할 필요가 없다.
+     */
+    private static BooleanExpression usernameContainsShort(NumberExpression<Long> id,
+                                                           Expression<String> from,
+                                                           Expression<String> to) {
+        return id.in(JPAExpressions
+                .select(memberUsernameGram.memberId)
+                .from(memberUsernameGram)
+                .where(memberUsernameGram.gram.goe(from), memberUsernameGram.gram.lt(to)));
+    }
+
+    private static boolean isShort(String text) {
+        return text.length() < UsernameGrams.SIZE;
+    }
+
+    /**
+     * Querydsl 은 like 를 "like ? escape '!'" 로 쓰므로 '!' 로 like 특수 문자(와 '!' 자신)를 감싼다.
+     */
+    private static String containsPattern(String text) {
+        String escaped = text.replace(LIKE_ESCAPE, LIKE_ESCAPE + LIKE_ESCAPE)
+                .replace("%", LIKE_ESCAPE + "%")
+                .replace("_", LIKE_ESCAPE + "_");
+        return "%" + escaped + "%";
+    }
+}
@@ -0,0 +1,83 @@
+package study.querydsl.domain.member.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import study.querydsl.domain.member.dto.MemberSearchCond;
+import study.querydsl.domain.member.dto.MemberTeamDto;
+import study.querydsl.domain.member.dto.QMemberTeamDto;
+import study.querydsl.domain.member.entity.MemberSearchView;
+import study.querydsl.utils.support.Querydsl4RepositorySupport;
+import study.querydsl.utils.support.ReadOnlyQuery;
+
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.domain.member.entity.QMemberSearchView.memberSearchView;
+
+/**
+ * member_search_view 한 테이블만 보는 검색. team 이름까지 펼쳐져 있어서 join 이 없다.
+ */
+@Repository
+@ReadOnlyQuery
+public class MemberSearchViewRepository extends Querydsl4RepositorySupport {
+
+    public MemberSearchViewRepository() {
+        super(MemberSearchView.class);
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCond cond) {
+        return fetchContent(searchQuery(cond));
+    }
+
+    /**
+     * pageable 의 sort 를 적용하고 member id 를 마지막 정렬 키로 붙인다. (applySorting)
+     */
+    public Page<MemberTeamDto> searchPage(MemberSearchCond cond, Pageable pageable) {
+        JPAQuery<MemberTeamDto> query = searchQuery(cond);
+        JPAQuery<Long> countQuery = countQuery(query);
+        applySorting(pageable.getSort(), query);
+        if (pageable.isPaged()) {
+            query.offset(pageable.getOffset()).limit(pageable.getPageSize());
+        }
+        return fetchPage(pageable, query, countQuery);
+    }
+
+    private JPAQuery<MemberTeamDto> searchQuery(MemberSearchCond cond) {
+        return select(new QMemberTeamDto(
+                        memberSearchView.memberId,
+                        memberSearchView.username,
+                        memberSearchView.age,
+                        memberSearchView.teamId,
+                        memberSearchView.teamName
+                ))
+                .from(memberSearchView)
+                .where(
+                        usernameEq(cond.getUsername()),
+                        MemberSearchShape.usernamePrefix(memberSearchView.username, cond.getUsernamePrefix()),
+                        MemberSearchShape.usernameContains(memberSearchView.memberId, memberSearchView.username,
+                                cond.getUsernameContains()),
+                        teamNameEq(cond.getTeamName()),
+                        ageGoe(cond.getAgeGoe()),
+                        ageLoe(cond.getAgeLoe())
+                );
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return hasText(username) ? memberSearchView.username.eq(username) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? memberSearchView.teamName.eq(teamName) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? memberSearchView.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? memberSearchView.age.loe(ageLoe) : null;
+    }
+}
@@ -7,10 +7,15 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import study.querydsl.domain.member.dto.MemberSearchCond;
+import study.querydsl.domain.member.dto.MemberTeamDto;
+import study.querydsl.domain.member.dto.QMemberTeamDto;
 import study.querydsl.domain.member.entity.Member;
 import study.querydsl.domain.member.entity.QMember;
-import study.querydsl.domain.team.entity.QTeam;
+import study.querydsl.utils.support.BulkProgressListener;
+import study.querydsl.utils.support.BulkResult;
+import study.querydsl.utils.support.OptionalJoins;
 import study.querydsl.utils.support.Querydsl4RepositorySupport;
+import study.querydsl.utils.support.ReadOnlyQuery;
 
 import java.util.List;
 
@@ -21,73 +26,114 @@ import static study.querydsl.domain.team.entity.QTeam.team;
 @Repository
 public class MemberTestRepository extends Querydsl4RepositorySupport {
 
+    private static final OptionalJoins.Join TEAM_JOIN = MemberSearchShape.TEAM_JOIN;
+
     public MemberTestRepository() {
         super(Member.class);
     }
 
+    @ReadOnlyQuery
     public List<Member> basicSelect() {
         return select(member)
                 .from(member)
                 .fetch();
     }
 
+    @ReadOnlyQuery
     public List<Member> basicSelectFrom() {
         return selectFrom(member)
                 .fetch();
     }
 
+    @ReadOnlyQuery
     public Page<Member> searchPageBuApplyPage(MemberSearchCond cond, Pageable pageable) {
-        JPAQuery<Member> query = selectFrom(member)
-                .leftJoin(member.team, team)
+        JPAQuery<Member> query = OptionalJoins.apply(selectFrom(member)
                 .where(
                         usernameEq(cond.getUsername()),
                         teamNameEq(cond.getTeamName()),
                         ageGoe(cond.getAgeGoe()),
                         ageLoe(cond.getAgeLoe())
-                );
-        List<Member> content = getQuerydsl().applyPagination(pageable, query)
-                .fetch();
+                ), TEAM_JOIN);
+        List<Member> content = fetchContent(getQuerydsl().applyPagination(pageable, query));
 
-        return PageableExecutionUtils.getPage(content, pageable, query::fetchCount);
+        return PageableExecutionUtils.getPage(content, pageable, () -> cachedCount(countQuery(query)));
     }
 
+    @ReadOnlyQuery
     public Page<Member> applyPagination(MemberSearchCond cond, Pageable pageable) {
-        return applyPagination(pageable, query -> query
+        return applyPagination(pageable, query -> OptionalJoins.apply(query
                 .selectFrom(member)
-                .leftJoin(member.team, team)
                 .where(
                         usernameEq(cond.getUsername()),
                         teamNameEq(cond.getTeamName()),
                         ageGoe(cond.getAgeGoe()),
                         ageLoe(cond.getAgeLoe())
-                )
+                ), TEAM_JOIN)
         );
     }
 
+    @ReadOnlyQuery
     public Page<Member> applyPagination2(MemberSearchCond cond, Pageable pageable) {
         return applyPagination(pageable,
-                query -> query
+                query -> OptionalJoins.apply(query
                         .selectFrom(member)
-                        .leftJoin(member.team, team)
                         .where(
                                 usernameEq(cond.getUsername()),
                                 teamNameEq(cond.getTeamName()),
                                 ageGoe(cond.getAgeGoe()),
                                 ageLoe(cond.getAgeLoe())
-                        ),
-                countQuery -> countQuery
+                        ), TEAM_JOIN),
+                countQuery -> OptionalJoins.apply(countQuery
                         .select(member.id)
                         .from(member)
-                        .leftJoin(member.team, team)
                         .where(
                                 usernameEq(cond.getUsername()),
                                 teamNameEq(cond.getTeamName()),
                                 ageGoe(cond.getAgeGoe()),
                                 ageLoe(cond.getAgeLoe())
-                        )
+                        ), TEAM_JOIN)
         );
     }
 
+    /**
+     * id 만 먼저 페이징하고(1단계), 그 페이지의 id 로 team 을 join 해서 DTO 를 읽는다(2단계).
+     */
+    @ReadOnlyQuery
+    public Page<MemberTeamDto> applyPaginationDeferred(MemberSearchCond cond, Pageable pageable) {
+        return applyPagination(pageable,
+                query -> OptionalJoins.apply(query
+                        .from(member)
+                        .where(
+                                usernameEq(cond.getUsername()),
+                                teamNameEq(cond.getTeamName()),
+                                ageGoe(cond.getAgeGoe()),
+                                ageLoe(cond.getAgeLoe())
+                        ), TEAM_JOIN),
+                query -> OptionalJoins.apply(query
+                        .select(new QMemberTeamDto(
+                                member.id,
+                                member.username,
+                                member.age,
+                                team.id,
+                                team.name
+                        ))
+                        .from(member), TEAM_JOIN),
+                MemberTeamDto::getMemberId);
+    }
+
+    /**
+     * ageLt 보다 어린 회원의 이름을 chunkSize 개 id 범위씩 나눠서 바꾼다.
+     */
+    public BulkResult bulkUpdateUsername(int ageLt, String username, int chunkSize, BulkProgressListener listener) {
+        return bulkUpdate(member.age.lt(ageLt),
+                update -> update.set(member.username, username),
+                chunkSize, listener);
+    }
+
+    public BulkResult bulkDeleteYoungerThan(int ageLt, int chunkSize, BulkProgressListener listener) {
+        return bulkDelete(member.age.lt(ageLt), chunkSize, listener);
+    }
+
     private BooleanExpression usernameEq(String username) {
         return hasText(username) ? member.username.eq(username) : null;
     }
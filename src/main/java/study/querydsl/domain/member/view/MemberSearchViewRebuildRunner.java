@@ -0,0 +1,30 @@
+package study.querydsl.domain.member.view;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * --rebuild-search-view 옵션으로 기동하면 member_search_view 를, --rebuild-username-grams 옵션이면 member_username_gram 을 다시 만든다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberSearchViewRebuildRunner implements ApplicationRunner {
+
+    static final String OPTION = "rebuild-search-view";
+    static final String GRAM_OPTION = "rebuild-username-grams";
+
+    private final MemberSearchViewRebuilder rebuilder;
+    private final MemberUsernameGramRebuilder gramRebuilder;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption(OPTION)) {
+            rebuilder.rebuild();
+        }
+        if (args.containsOption(GRAM_OPTION)) {
+            gramRebuilder.rebuild();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package study.querydsl.domain.member.view;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.member.entity.MemberSearchView;
+import study.querydsl.utils.event.EntityWriteEvents;
+
+/**
+ * member_search_view 를 member/team 으로부터 통째로 다시 만든다.
+ * 뷰를 처음 도입할 때, 또는 이벤트를 거치지 않는 변경(DB 직접 수정) 뒤에 돌린다.
+ * Querydsl4RepositorySupport 의 벌크 연산은 MemberSearchViewUpdater 가 바뀐 범위를 바로 고친다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberSearchViewRebuilder {
+
+    private final MemberSearchViewUpdater updater;
+    private final EntityWriteEvents entityWriteEvents;
+
+    @Transactional
+    public int rebuild() {
+        long start = System.nanoTime();
+        int rows = updater.repairMembers(null, null);
+        entityWriteEvents.bulkChanged(MemberSearchView.class);
+        log.info("member_search_view rebuilt: {} rows in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+}
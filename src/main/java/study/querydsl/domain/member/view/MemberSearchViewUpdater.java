@@ -0,0 +1,130 @@
+package study.querydsl.domain.member.view;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.Hibernate;
+import org.hibernate.event.spi.EventSource;
+import org.springframework.stereotype.Component;
+import study.querydsl.domain.member.entity.Member;
+import study.querydsl.domain.team.entity.Team;
+import study.querydsl.utils.event.BulkWrite;
+import study.querydsl.utils.event.EntityWrite;
+import study.querydsl.utils.event.EntityWriteEvents;
+
+import java.sql.PreparedStatement;
+
+/**
+ * Member/Team 이 flush 될 때 member_search_view 를 같은 커넥션(같은 트랜잭션)에서 함께 고친다.
+ * <p>
+ * flush 중이라 엔티티를 로딩할 수 없으므로, team 이 초기화되지 않은 프록시면 team 이름은 team 테이블에서 서브쿼리로 읽는다.
+ * (프록시라는 것은 team 이 이미 DB 에 있다는 뜻이다)
+ * <p>
+ * 엔티티 이벤트가 없는 벌크 연산은 같은 트랜잭션에서 바뀐 id 범위의 row 를 member/team 으로부터 다시 만든다.
+ */
+@Component
+public class MemberSearchViewUpdater {
+
+    private static final String TEAM_NAME = "coalesce(?, (select t.name from team t where t.team_id = ?))";
+
+    private static final String INSERT_MEMBER = "insert into member_search_view (member_id, username, age, team_id, team_name) "
+            + "values (?, ?, ?, ?, " + TEAM_NAME + ")";
+    private static final String UPDATE_MEMBER = "update member_search_view "
+            + "set username = ?, age = ?, team_id = ?, team_name = " + TEAM_NAME + " where member_id = ?";
+    private static final String DELETE_MEMBER = "delete from member_search_view where member_id = ?";
+    private static final String UPDATE_TEAM = "update member_search_view set team_name = ? where team_id = ?";
+    private static final String DELETE_TEAM = "update member_search_view set team_id = null, team_name = null where team_id = ?";
+
+    private static final String DELETE_MEMBERS = "delete from member_search_view";
+    private static final String INSERT_MEMBERS = "insert into member_search_view (member_id, username, age, team_id, team_name) "
+            + "select m.member_id, m.username, m.age, m.team_id, t.name "
+            + "from member m left join team t on t.team_id = m.team_id";
+    private static final String UPDATE_TEAM_NAMES = "update member_search_view v "
+            + "set team_name = (select t.name from team t where t.team_id = v.team_id) where v.team_id is not null";
+
+    private final EntityManager em;
+
+    public MemberSearchViewUpdater(EntityManager em, EntityWriteEvents entityWriteEvents) {
+        this.em = em;
+        entityWriteEvents.subscribeWrites(this::apply);
+        entityWriteEvents.subscribeBulkWrites(this::applyBulk);
+    }
+
+    /**
+     * member id 가 fromId ~ toId 인 row 를 지우고 member/team 에서 다시 넣는다. 범위가 없으면 전체를 다시 만든다.
+     * 트랜잭션 안에서 불러야 한다.
+     */
+    public int repairMembers(Long fromId, Long toId) {
+        String range = fromId != null ? " where member_id between :from and :to" : "";
+        String memberRange = fromId != null ? " where m.member_id between :from and :to" : "";
+        Query delete = em.createNativeQuery(DELETE_MEMBERS + range);
+        Query insert = em.createNativeQuery(INSERT_MEMBERS + memberRange);
+        if (fromId != null) {
+            delete.setParameter("from", fromId).setParameter("to", toId);
+            insert.setParameter("from", fromId).setParameter("to", toId);
+        }
+        delete.executeUpdate();
+        return insert.executeUpdate();
+    }
+
+    private void applyBulk(BulkWrite write) {
+        if (write.type() == Member.class) {
+            repairMembers(write.fromId(), write.toId());
+        } else if (write.type() == Team.class) {
+            Query update = em.createNativeQuery(UPDATE_TEAM_NAMES
+                    + (write.hasRange() ? " and v.team_id between :from and :to" : ""));
+            if (write.hasRange()) {
+                update.setParameter("from", write.fromId()).setParameter("to", write.toId());
+            }
+            update.executeUpdate();
+        }
+    }
+
+    private void apply(EntityWrite write) {
+        if (write.entity() instanceof Member member) {
+            applyMember(write.kind(), member, write.session());
+        } else if (write.entity() instanceof Team team) {
+            applyTeam(write.kind(), team, write.session());
+        }
+    }
+
+    private void applyMember(EntityWrite.Kind kind, Member member, EventSource session) {
+        Team team = member.getTeam();
+        Long teamId = team != null ? team.getId() : null;
+        String teamName = team != null && Hibernate.isInitialized(team) ? team.getName() : null;
+        switch (kind) {
+            case INSERT -> execute(session, INSERT_MEMBER,
+                    member.getId(), member.getUsername(), member.getAge(), teamId, teamName, teamId);
+            case UPDATE -> {
+                int updated = execute(session, UPDATE_MEMBER,
+                        member.getUsername(), member.getAge(), teamId, teamName, teamId, member.getId());
+                // 뷰가 비어 있던 row(재생성 전 데이터 등)는 새로 넣는다.
+                if (updated == 0) {
+                    execute(session, INSERT_MEMBER,
+                            member.getId(), member.getUsername(), member.getAge(), teamId, teamName, teamId);
+                }
+            }
+            case DELETE -> execute(session, DELETE_MEMBER, member.getId());
+        }
+    }
+
+    private void applyTeam(EntityWrite.Kind kind, Team team, EventSource session) {
+        switch (kind) {
+            case INSERT -> {
+                // 새 team 에 속한 member 는 member insert/update 에서 반영된다.
+            }
+            case UPDATE -> execute(session, UPDATE_TEAM, team.getName(), team.getId());
+            case DELETE -> execute(session, DELETE_TEAM, team.getId());
+        }
+    }
+
+    private int execute(EventSource session, String sql, Object... args) {
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < args.length; i++) {
+                    statement.setObject(i + 1, args[i]);
+                }
+                return statement.executeUpdate();
+            }
+        });
+    }
+}
@@ -0,0 +1,31 @@
+package study.querydsl.domain.member.view;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.member.entity.MemberUsernameGram;
+import study.querydsl.utils.event.EntityWriteEvents;
+
+/**
+ * member_username_gram 을 member 로부터 통째로 다시 만든다.
+ * 색인을 처음 도입할 때, 또는 이벤트를 거치지 않는 변경(DB 직접 수정) 뒤에 돌린다.
+ * Querydsl4RepositorySupport 의 벌크 연산은 MemberUsernameGramUpdater 가 바뀐 범위를 바로 고친다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberUsernameGramRebuilder {
+
+    private final MemberUsernameGramUpdater updater;
+    private final EntityWriteEvents entityWriteEvents;
+
+    @Transactional
+    public int rebuild() {
+        long start = System.nanoTime();
+        int rows = updater.repair(null, null);
+        entityWriteEvents.bulkChanged(MemberUsernameGram.class);
+        log.info("member_username_gram rebuilt: {} rows in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+}
@@ -0,0 +1,139 @@
+package study.querydsl.domain.member.view;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.event.spi.EventSource;
+import org.springframework.stereotype.Component;
+import study.querydsl.domain.member.entity.Member;
+import study.querydsl.utils.event.BulkWrite;
+import study.querydsl.utils.event.EntityWrite;
+import study.querydsl.utils.event.EntityWriteEvents;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Member 가 flush 될 때 member_username_gram 을 같은 커넥션(같은 트랜잭션)에서 함께 고친다.
+ * update 는 username 이 바뀐 경우에만 지우고 다시 넣는다. (이전 값을 모르면 항상)
+ * 엔티티 이벤트가 없는 벌크 연산은 같은 트랜잭션에서 바뀐 id 범위의 gram 을 member 로부터 다시 만든다.
+ */
+@Component
+public class MemberUsernameGramUpdater {
+
+    static final String INSERT_GRAM = "insert into member_username_gram (gram, member_id) values (?, ?)";
+    static final String DELETE_GRAMS = "delete from member_username_gram where member_id = ?";
+
+    private static final String DELETE_ALL = "delete from member_username_gram";
+    private static final String SELECT_MEMBERS = "select member_id, username from member";
+    private static final String ID_RANGE = " where member_id between ? and ?";
+    private static final int BATCH_SIZE = 1000;
+
+    private final EntityManager em;
+
+    public MemberUsernameGramUpdater(EntityManager em, EntityWriteEvents entityWriteEvents) {
+        this.em = em;
+        entityWriteEvents.subscribeWrites(this::apply);
+        entityWriteEvents.subscribeBulkWrites(this::applyBulk);
+    }
+
+    /**
+     * member id 가 fromId ~ toId 인 gram 을 지우고 member 에서 다시 넣는다. 범위가 없으면 전체를 다시 만든다.
+     * 트랜잭션 안에서 불러야 한다. 넣은 gram 수를 반환한다.
+     */
+    public int repair(Long fromId, Long toId) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement delete = prepare(connection, DELETE_ALL, fromId, toId)) {
+                delete.executeUpdate();
+            }
+            int inserted = 0;
+            try (PreparedStatement select = prepare(connection, SELECT_MEMBERS, fromId, toId);
+                 PreparedStatement insert = connection.prepareStatement(INSERT_GRAM)) {
+                select.setFetchSize(BATCH_SIZE);
+                try (ResultSet rs = select.executeQuery()) {
+                    int pending = 0;
+                    while (rs.next()) {
+                        long memberId = rs.getLong(1);
+                        for (String gram : UsernameGrams.index(rs.getString(2))) {
+                            insert.setString(1, gram);
+                            insert.setLong(2, memberId);
+                            insert.addBatch();
+                            pending++;
+                        }
+                        if (pending >= BATCH_SIZE) {
+                            inserted += pending;
+                            insert.executeBatch();
+                            pending = 0;
+                        }
+                    }
+                    inserted += pending;
+                    insert.executeBatch();
+                }
+            }
+            return inserted;
+        });
+    }
+
+    private static PreparedStatement prepare(Connection connection, String sql, Long fromId, Long toId) throws SQLException {
+        if (fromId == null) {
+            return connection.prepareStatement(sql);
+        }
+        PreparedStatement statement = connection.prepareStatement(sql + ID_RANGE);
+        statement.setLong(1, fromId);
+        statement.setLong(2, toId);
+        return statement;
+    }
+
+    private void apply(EntityWrite write) {
+        if (!(write.entity() instanceof Member member)) {
+            return;
+        }
+        switch (write.kind()) {
+            case INSERT -> insert(write.session(), member);
+            case UPDATE -> {
+                // age/team 만 바뀐 update 는 gram 이 그대로다.
+                if (write.hasPrevious() && Objects.equals(write.previous("username"), member.getUsername())) {
+                    return;
+                }
+                delete(write.session(), member.getId());
+                insert(write.session(), member);
+            }
+            case DELETE -> delete(write.session(), member.getId());
+        }
+    }
+
+    private void applyBulk(BulkWrite write) {
+        if (write.type() == Member.class) {
+            repair(write.fromId(), write.toId());
+        }
+    }
+
+    private void insert(EventSource session, Member member) {
+        Set<String> grams = UsernameGrams.index(member.getUsername());
+        if (grams.isEmpty()) {
+            return;
+        }
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_GRAM)) {
+                for (String gram : grams) {
+                    statement.setString(1, gram);
+                    statement.setLong(2, member.getId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    private void delete(EventSource session, Long memberId) {
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(DELETE_GRAMS)) {
+                statement.setLong(1, memberId);
+                statement.executeUpdate();
+            }
+        });
+    }
+}
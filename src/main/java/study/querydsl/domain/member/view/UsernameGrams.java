@@ -0,0 +1,51 @@
+package study.querydsl.domain.member.view;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * member_username_gram 에 넣을 gram 과, 검색어로 찾을 gram 을 만든다.
+ * <p>
+ * 색인에는 각 위치에서 시작하는 최대 3글자를 넣는다. 끝쪽의 1~2글자 gram 이 있어서
+ * 3글자 미만 검색어도 "gram 이 검색어로 시작하는가" 로 찾을 수 있다.
+ */
+public final class UsernameGrams {
+
+    public static final int SIZE = 3;
+
+    private UsernameGrams() {
+    }
+
+    public static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 색인에 넣을 gram. "kim" -> [kim, im, m]
+     */
+    public static Set<String> index(String username) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (username == null) {
+            return grams;
+        }
+        String text = normalize(username);
+        for (int i = 0; i < text.length(); i++) {
+            grams.add(text.substring(i, Math.min(i + SIZE, text.length())));
+        }
+        return grams;
+    }
+
+    /**
+     * 3글자 이상 검색어가 포함된 username 이라면 반드시 가지고 있는 gram. "member" -> [mem, emb, mbe, ber]
+     * 검색어가 3글자 미만이면 비어 있다.
+     */
+    public static Set<String> query(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        String normalized = normalize(text);
+        for (int i = 0; i + SIZE <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + SIZE));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,52 @@
+package study.querydsl.domain.team.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.domain.team.dto.TeamMembersDto;
+import study.querydsl.domain.team.dto.TeamSearchCond;
+import study.querydsl.domain.team.dto.TeamStatsDto;
+import study.querydsl.domain.team.repository.TeamCache;
+import study.querydsl.domain.team.repository.TeamRepository;
+import study.querydsl.domain.team.repository.TeamStatsRepository;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamApiController {
+
+    private final TeamRepository teamRepository;
+    private final TeamStatsRepository teamStatsRepository;
+    private final TeamCache teamCache;
+
+    @GetMapping("/v1/teams")
+    public Page<TeamMembersDto> searchTeamV1(TeamSearchCond cond, Pageable pageable) {
+        return teamRepository.searchWithMembers(cond, pageable);
+    }
+
+    /**
+     * team_stats 에서 id 로 바로 읽는다. member 를 집계하지 않는다.
+     */
+    @GetMapping("/v1/teams/{teamId}/stats")
+    public TeamStatsDto teamStats(@PathVariable Long teamId) {
+        return teamStatsRepository.findById(teamId)
+                .map(stats -> new TeamStatsDto(stats, teamCache.nameOf(teamId)))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Team not found: " + teamId));
+    }
+
+    /**
+     * 같은 이름의 team 들의 통계. 이름은 TeamCache 로 id 로 바꾼다.
+     */
+    @GetMapping("/v1/teams/stats")
+    public List<TeamStatsDto> teamStatsByName(TeamSearchCond cond) {
+        return teamStatsRepository.findAllById(teamCache.idsOf(cond.getTeamName())).stream()
+                .map(stats -> new TeamStatsDto(stats, teamCache.nameOf(stats.getTeamId())))
+                .toList();
+    }
+}
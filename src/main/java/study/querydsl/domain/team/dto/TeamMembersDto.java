@@ -0,0 +1,25 @@
+package study.querydsl.domain.team.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class TeamMembersDto {
+
+    private Long teamId;
+    private String teamName;
+    // team 의 전체 member 수. members 에는 앞에서부터 최대 querydsl.team-members.max-per-team 명만 담긴다.
+    private long memberCount;
+    private List<TeamMemberDto> members = new ArrayList<>();
+
+    @QueryProjection
+    public TeamMembersDto(Long teamId, String teamName) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+    }
+}
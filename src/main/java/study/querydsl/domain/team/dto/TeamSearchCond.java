@@ -0,0 +1,9 @@
+package study.querydsl.domain.team.dto;
+
+import lombok.Data;
+
+@Data
+public class TeamSearchCond {
+
+    private String teamName;
+}
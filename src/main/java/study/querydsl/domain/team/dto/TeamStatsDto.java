@@ -0,0 +1,28 @@
+package study.querydsl.domain.team.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import study.querydsl.domain.team.entity.TeamStats;
+
+@Data
+@NoArgsConstructor
+public class TeamStatsDto {
+
+    private Long teamId;
+    private String teamName;
+    private long memberCount;
+    private long ageSum;
+    private Double ageAvg;
+    private Integer ageMin;
+    private Integer ageMax;
+
+    public TeamStatsDto(TeamStats stats, String teamName) {
+        this.teamId = stats.getTeamId();
+        this.teamName = teamName;
+        this.memberCount = stats.getMemberCount();
+        this.ageSum = stats.getAgeSum();
+        this.ageAvg = stats.getAgeAvg();
+        this.ageMin = stats.getAgeMin();
+        this.ageMax = stats.getAgeMax();
+    }
+}
@@ -0,0 +1,37 @@
+package study.querydsl.domain.team.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * team 별 member 나이 통계 요약. team 당 한 row 라서 member 수와 상관없이 id 로 바로 읽는다.
+ * <p>
+ * 애플리케이션에서 직접 쓰지 않는다. Member/Team 의 변경을 TeamStatsUpdater 가 모았다가 같은 트랜잭션의 커밋 직전에 증감하고,
+ * 어긋난 것은 TeamStatsReconciler 가 주기적으로 다시 맞춘다.
+ */
+@Entity
+@Immutable
+@Table(name = "team_stats")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStats {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+
+    private long memberCount;
+    private long ageSum;
+    // member 가 없으면 null
+    private Integer ageMin;
+    private Integer ageMax;
+
+    public Double getAgeAvg() {
+        return memberCount == 0 ? null : (double) ageSum / memberCount;
+    }
+}
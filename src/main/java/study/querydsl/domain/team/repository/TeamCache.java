@@ -0,0 +1,226 @@
+package study.querydsl.domain.team.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.domain.team.entity.Team;
+import study.querydsl.utils.event.EntityWriteEvents;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static study.querydsl.domain.team.entity.QTeam.team;
+
+/**
+ * Team 의 (id, name) 전체를 메모리에 들고 있는 참조 캐시.
+ * team 은 작고 거의 바뀌지 않으므로, member 검색에서 team join 대신 이 캐시로 이름 ↔ id 를 바꾼다.
+ * <p>
+ * ttl 이 지나면 다음 조회 때 다시 읽고, Team 이 insert/update/delete 되면 바로 버린다.
+ * 다시 읽는 동안 무효화가 일어나면 읽은 값은 그 요청에만 쓰고 저장하지 않는다.
+ * <p>
+ * 캐시에 없는 이름/id 는 그 이름/id 만 DB 에서 찾아 본다. (전체를 다시 읽지 않고 락도 잡지 않는다)
+ * 아직 flush 되지 않은 새 team 은 이벤트가 오기 전이라 캐시에 없는데, 찾아 보는 쿼리가 auto flush 를 일으키므로 같은 트랜잭션 안에서도 보인다.
+ * 찾아도 없으면 스냅샷이 바뀔 때까지 없다고 기억한다(최대 MAX_MISSES 개). 단 쓰기 트랜잭션에서 flush 안 된 변경이 있으면 다시 찾아 본다.
+ * <p>
+ * 전체를 다시 읽는 것은 한 스레드만 하고 나머지는 그 결과를 기다린다. 쿼리는 락이나 synchronized 밖에서 실행하므로
+ * 가상 스레드에서도 carrier 를 붙잡지 않는다.
+ */
+@Component
+public class TeamCache {
+
+    static final int MAX_MISSES = 10_000;
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final long ttlNanos;
+    private final int maxMisses;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<CompletableFuture<Snapshot>> loading = new AtomicReference<>();
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public TeamCache(EntityManager em,
+                     EntityWriteEvents entityWriteEvents,
+                     @Value("${querydsl.team-cache.ttl:PT5M}") Duration ttl) {
+        this(em, entityWriteEvents, ttl, MAX_MISSES);
+    }
+
+    TeamCache(EntityManager em, EntityWriteEvents entityWriteEvents, Duration ttl, int maxMisses) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.ttlNanos = ttl.toNanos();
+        this.maxMisses = maxMisses;
+        entityWriteEvents.subscribe(type -> {
+            if (Team.class.isAssignableFrom(type)) {
+                invalidate();
+            }
+        });
+    }
+
+    /**
+     * 이름이 같은 team 이 여러 개일 수 있으므로 id 목록을 반환한다. 없으면 빈 목록.
+     */
+    public List<Long> idsOf(String name) {
+        if (name == null) {
+            return List.of();
+        }
+        Snapshot current = snapshot();
+        List<Long> ids = current.idsByName.get(name);
+        if (ids != null) {
+            return ids;
+        }
+        if (current.missingNames.contains(name) && !hasPendingWrites()) {
+            return List.of();
+        }
+        ids = queryFactory
+                .select(team.id)
+                .from(team)
+                .where(team.name.eq(name))
+                .fetch();
+        if (ids.isEmpty()) {
+            missed(current.missingNames, name);
+        }
+        return ids;
+    }
+
+    public String nameOf(Long id) {
+        if (id == null) {
+            return null;
+        }
+        Snapshot current = snapshot();
+        String name = current.nameById.get(id);
+        if (name != null || (current.missingIds.contains(id) && !hasPendingWrites())) {
+            return name;
+        }
+        name = queryFactory
+                .select(team.name)
+                .from(team)
+                .where(team.id.eq(id))
+                .fetchOne();
+        if (name == null) {
+            missed(current.missingIds, id);
+        }
+        return name;
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null && current.isValid(generation.get())) {
+            return current;
+        }
+        return load(current);
+    }
+
+    /**
+     * 현재 쓰기 트랜잭션에 아직 flush 되지 않은 변경이 있는지. 있으면 없다고 기억한 이름/id 도 다시 찾아 본다.
+     */
+    private boolean hasPendingWrites() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && em.unwrap(Session.class).isDirty();
+    }
+
+    private <K> void missed(Set<K> missing, K key) {
+        if (missing.size() < maxMisses) {
+            missing.add(key);
+        }
+    }
+
+    /**
+     * stale 은 호출한 쪽이 버리려는 스냅샷이다. 다른 스레드가 읽고 있으면 그 결과를 기다려서 쓰고,
+     * 그 결과가 기다리기 전의 무효화보다 오래된 것이면 다시 읽는다.
+     */
+    private Snapshot load(Snapshot stale) {
+        while (true) {
+            long wanted = generation.get();
+            Snapshot current = snapshot;
+            if (current != null && current != stale && current.isValid(wanted)) {
+                return current;
+            }
+            CompletableFuture<Snapshot> inFlight = loading.get();
+            if (inFlight != null) {
+                try {
+                    Snapshot loaded = inFlight.join();
+                    if (loaded.generation >= wanted) {
+                        return loaded;
+                    }
+                } catch (CompletionException e) {
+                    // 읽던 스레드가 실패했으면 직접 읽어 본다.
+                }
+                continue;
+            }
+            CompletableFuture<Snapshot> mine = new CompletableFuture<>();
+            if (loading.compareAndSet(null, mine)) {
+                return loadInto(mine);
+            }
+        }
+    }
+
+    private Snapshot loadInto(CompletableFuture<Snapshot> mine) {
+        Snapshot loaded;
+        try {
+            long loadGeneration = generation.get();
+            List<Tuple> rows = queryFactory
+                    .select(team.id, team.name)
+                    .from(team)
+                    .fetch();
+            loaded = new Snapshot(rows, loadGeneration, System.nanoTime() + ttlNanos);
+            if (loadGeneration == generation.get()) {
+                snapshot = loaded;
+            }
+        } catch (RuntimeException e) {
+            loading.set(null);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        // 기다리던 스레드가 다시 돌 때 끝난 future 를 또 보지 않도록 먼저 비운다.
+        loading.set(null);
+        mine.complete(loaded);
+        return loaded;
+    }
+
+    private static final class Snapshot {
+
+        private final Map<Long, String> nameById = new HashMap<>();
+        private final Map<String, List<Long>> idsByName = new HashMap<>();
+        private final Set<String> missingNames = ConcurrentHashMap.newKeySet();
+        private final Set<Long> missingIds = ConcurrentHashMap.newKeySet();
+        private final long generation;
+        private final long expiresAt;
+
+        private Snapshot(Collection<Tuple> rows, long generation, long expiresAt) {
+            for (Tuple row : rows) {
+                Long id = row.get(team.id);
+                String name = row.get(team.name);
+                nameById.put(id, name);
+                idsByName.computeIfAbsent(name, k -> new ArrayList<>()).add(id);
+            }
+            this.generation = generation;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isValid(long currentGeneration) {
+            return generation == currentGeneration && System.nanoTime() - expiresAt < 0;
+        }
+    }
+}
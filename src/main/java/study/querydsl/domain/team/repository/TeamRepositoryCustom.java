@@ -0,0 +1,11 @@
+package study.querydsl.domain.team.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.domain.team.dto.TeamMembersDto;
+import study.querydsl.domain.team.dto.TeamSearchCond;
+
+public interface TeamRepositoryCustom {
+
+    Page<TeamMembersDto> searchWithMembers(TeamSearchCond cond, Pageable pageable);
+}
@@ -0,0 +1,116 @@
+package study.querydsl.domain.team.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.util.Assert;
+import study.querydsl.domain.team.dto.QTeamMembersDto;
+import study.querydsl.domain.team.dto.TeamMemberDto;
+import study.querydsl.domain.team.dto.TeamMembersDto;
+import study.querydsl.domain.team.dto.TeamSearchCond;
+import study.querydsl.domain.team.entity.Team;
+import study.querydsl.utils.support.Querydsl4RepositorySupport;
+import study.querydsl.utils.support.ReadOnlyQuery;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.domain.team.entity.QTeam.team;
+
+/**
+ * team 과 members 를 한 번에 페이징하지 않는다. (컬렉션 fetch join + 페이징은 메모리에서 잘린다 - HHH000104)
+ * <ol>
+ *     <li>team 만 DB 에서 페이징한다. (+ count)</li>
+ *     <li>그 페이지 team 들의 member 를 team id in (...) 으로 batch-size 개씩 묶어 읽고 team 별로 모은다.</li>
+ * </ol>
+ * 그래서 페이지 하나의 쿼리 수는 1 + ceil(페이지 크기 / batch-size) (+ count) 로 고정이다.
+ * team 정렬은 pageable 의 sort 에 id 를 마지막 키로 붙인다. (applySorting)
+ * <p>
+ * member 는 team 마다 id 순으로 max-per-team 명까지만 담고, 전체 수는 memberCount 로 알려 준다.
+ * JPQL 로는 그룹별 limit 을 걸 수 없어서 row_number() window 함수를 쓰는 native 쿼리로 읽는다.
+ */
+@ReadOnlyQuery
+public class TeamRepositoryImpl extends Querydsl4RepositorySupport implements TeamRepositoryCustom {
+
+    private static final String MEMBERS_OF_TEAMS = "select r.team_id, r.member_id, r.username, r.age, r.member_count from ("
+            + "select m.team_id, m.member_id, m.username, m.age, "
+            + "row_number() over (partition by m.team_id order by m.member_id) rn, "
+            + "count(*) over (partition by m.team_id) member_count "
+            + "from member m where m.team_id in (:teamIds)) r "
+            + "where r.rn <= :maxMembers "
+            + "order by r.team_id, r.member_id";
+
+    private int memberBatchSize = 100;
+    private int maxMembersPerTeam = 100;
+
+    public TeamRepositoryImpl() {
+        super(Team.class);
+    }
+
+    @Autowired
+    public void setMemberBatchSize(@Value("${querydsl.team-members.batch-size:100}") int memberBatchSize) {
+        Assert.isTrue(memberBatchSize > 0, "Batch size must be greater than zero!!");
+        this.memberBatchSize = memberBatchSize;
+    }
+
+    @Autowired
+    public void setMaxMembersPerTeam(@Value("${querydsl.team-members.max-per-team:100}") int maxMembersPerTeam) {
+        Assert.isTrue(maxMembersPerTeam > 0, "Max members per team must be greater than zero!!");
+        this.maxMembersPerTeam = maxMembersPerTeam;
+    }
+
+    @Override
+    public Page<TeamMembersDto> searchWithMembers(TeamSearchCond cond, Pageable pageable) {
+        JPAQuery<TeamMembersDto> query = select(new QTeamMembersDto(team.id, team.name))
+                .from(team)
+                .where(teamNameEq(cond.getTeamName()));
+
+        JPAQuery<Long> countQuery = countQuery(query);
+        applySorting(pageable.getSort(), query);
+        if (pageable.isPaged()) {
+            query.offset(pageable.getOffset()).limit(pageable.getPageSize());
+        }
+        Page<TeamMembersDto> page = fetchPage(pageable, query, countQuery);
+
+        fillMembers(page.getContent());
+        return page;
+    }
+
+    private void fillMembers(List<TeamMembersDto> teams) {
+        List<Long> teamIds = teams.stream()
+                .map(TeamMembersDto::getTeamId)
+                .toList();
+
+        Map<Long, List<TeamMemberDto>> membersByTeam = new HashMap<>();
+        Map<Long, Long> memberCounts = new HashMap<>();
+        for (int from = 0; from < teamIds.size(); from += memberBatchSize) {
+            List<Long> batch = teamIds.subList(from, Math.min(from + memberBatchSize, teamIds.size()));
+            @SuppressWarnings("unchecked")
+            List<Object[]> rows = nativeQuery(MEMBERS_OF_TEAMS)
+                    .setParameter("teamIds", batch)
+                    .setParameter("maxMembers", maxMembersPerTeam)
+                    .getResultList();
+            for (Object[] row : rows) {
+                Long teamId = ((Number) row[0]).longValue();
+                membersByTeam.computeIfAbsent(teamId, k -> new ArrayList<>())
+                        .add(new TeamMemberDto(((Number) row[1]).longValue(), (String) row[2], ((Number) row[3]).intValue()));
+                memberCounts.put(teamId, ((Number) row[4]).longValue());
+            }
+        }
+
+        for (TeamMembersDto dto : teams) {
+            dto.setMembers(membersByTeam.getOrDefault(dto.getTeamId(), List.of()));
+            dto.setMemberCount(memberCounts.getOrDefault(dto.getTeamId(), 0L));
+        }
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+}
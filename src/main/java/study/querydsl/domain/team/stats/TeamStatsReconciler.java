@@ -0,0 +1,78 @@
+package study.querydsl.domain.team.stats;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.team.entity.TeamStats;
+import study.querydsl.utils.event.EntityWriteEvents;
+
+import java.util.List;
+
+/**
+ * team_stats 를 member 테이블과 비교해서 어긋난 row 를 고친다.
+ * 이벤트를 거치지 않는 변경(JPQL 벌크 연산, DB 직접 수정)이나 도입 전 데이터로 생긴 차이를 맞춘다.
+ * member 전체를 읽으므로 요청 경로가 아니라 주기 작업(querydsl.team-stats.reconcile-interval)으로만 돈다.
+ * 어긋난 team 만 merge 하고 team 이 없어진 row 만 지우므로, 맞는 row 는 건드리지 않는다. (락도 잡지 않는다)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TeamStatsReconciler {
+
+    private static final int MERGE_CHUNK_SIZE = 500;
+
+    private static final String ACTUAL = "select t.team_id, count(m.member_id) member_count, coalesce(sum(m.age), 0) age_sum, "
+            + "min(m.age) age_min, max(m.age) age_max "
+            + "from team t left join member m on m.team_id = t.team_id";
+
+    private static final String DRIFTED_TEAMS = "select a.team_id from (" + ACTUAL + " group by t.team_id) a "
+            + "left join team_stats s on s.team_id = a.team_id "
+            + "where s.team_id is null "
+            + "or s.member_count <> a.member_count or s.age_sum <> a.age_sum "
+            + "or coalesce(s.age_min, -1) <> coalesce(a.age_min, -1) "
+            + "or coalesce(s.age_max, -1) <> coalesce(a.age_max, -1)";
+
+    private static final String MERGE_TEAMS = "merge into team_stats s "
+            + "using (" + ACTUAL + " where t.team_id in (:teamIds) group by t.team_id) a "
+            + "on (s.team_id = a.team_id) "
+            + "when matched then update set s.member_count = a.member_count, s.age_sum = a.age_sum, "
+            + "s.age_min = a.age_min, s.age_max = a.age_max "
+            + "when not matched then insert (team_id, member_count, age_sum, age_min, age_max) "
+            + "values (a.team_id, a.member_count, a.age_sum, a.age_min, a.age_max)";
+
+    private static final String DELETE_ORPHANS = "delete from team_stats s "
+            + "where not exists (select 1 from team t where t.team_id = s.team_id)";
+
+    private final EntityManager em;
+    private final EntityWriteEvents entityWriteEvents;
+
+    /**
+     * @return 고친 row 수
+     */
+    @Transactional
+    @Scheduled(initialDelayString = "${querydsl.team-stats.reconcile-interval:PT10M}",
+            fixedDelayString = "${querydsl.team-stats.reconcile-interval:PT10M}")
+    public int reconcile() {
+        long start = System.nanoTime();
+        @SuppressWarnings("unchecked")
+        List<Long> drifted = ((List<Number>) em.createNativeQuery(DRIFTED_TEAMS).getResultList()).stream()
+                .map(Number::longValue)
+                .toList();
+        for (int from = 0; from < drifted.size(); from += MERGE_CHUNK_SIZE) {
+            em.createNativeQuery(MERGE_TEAMS)
+                    .setParameter("teamIds", drifted.subList(from, Math.min(from + MERGE_CHUNK_SIZE, drifted.size())))
+                    .executeUpdate();
+        }
+        int orphans = em.createNativeQuery(DELETE_ORPHANS).executeUpdate();
+        int fixed = drifted.size() + orphans;
+        if (fixed == 0) {
+            return 0;
+        }
+        entityWriteEvents.bulkChanged(TeamStats.class);
+        log.warn("team_stats reconciled: {} drifted rows in {} ms", fixed, (System.nanoTime() - start) / 1_000_000);
+        return fixed;
+    }
+}
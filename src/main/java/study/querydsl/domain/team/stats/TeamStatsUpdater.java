@@ -0,0 +1,274 @@
+package study.querydsl.domain.team.stats;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.springframework.stereotype.Component;
+import study.querydsl.domain.member.entity.Member;
+import study.querydsl.domain.team.entity.Team;
+import study.querydsl.utils.event.BulkWrite;
+import study.querydsl.utils.event.EntityWrite;
+import study.querydsl.utils.event.EntityWriteEvents;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Member/Team 의 변경을 트랜잭션 동안 team 별 증감으로 모았다가 커밋 직전(마지막 flush 뒤)에 team_stats 에 한 번에 반영한다.
+ * <ul>
+ *     <li>member insert/delete: 그 team 의 count, sum 을 더하고 뺀다.</li>
+ *     <li>member 나이 변경, changeTeam: 이전 (team, age) 에서 빼고 새 (team, age) 에 더한다.</li>
+ *     <li>min/max 는 빠진 member 가 있는 team 만 member(team_id, age) 인덱스로 다시 구한다.</li>
+ * </ul>
+ * flush 중에는 SQL 을 보내지 않으므로 JDBC 배치가 끊기지 않는다. team_stats 는 team 당 update 한 번(JDBC 배치)이고,
+ * 같은 team 에 쓰는 트랜잭션끼리 그 row 의 락을 기다리는 구간도 커밋 직전으로 줄어든다. team id 순으로 쓰므로 교착하지 않는다.
+ * 그래서 같은 트랜잭션 안에서 flush 후 team_stats 를 읽으면 아직 반영되지 않은 값이 보인다.
+ * <p>
+ * 통계 row 가 없거나 이전 값을 모를 때는 그 team 을 member 테이블에서 다시 센다.
+ * 다시 셀 때는 MERGE(KEY team_id) 로 덮어쓰므로 같은 team 을 동시에 다시 세는 트랜잭션끼리 기본키가 부딪히지 않는다.
+ * id 범위 벌크 연산은 실행 전과 후에 그 범위의 member 가 속한 team 을 모아서 다시 센다. (지워지거나 옮겨진 member 의 이전 team 포함)
+ * 범위를 모르는 벌크 변경(대량 적재 뒤 등)은 TeamStatsReconciler 로 어긋난 team 만 다시 맞춘다.
+ */
+@Component
+public class TeamStatsUpdater {
+
+    private static final String DELETE_TEAM = "delete from team_stats where team_id = ?";
+    private static final String APPLY_DELTA = "update team_stats set member_count = member_count + ?, age_sum = age_sum + ?, "
+            + "age_min = case when ? = 1 then (select min(m.age) from member m where m.team_id = ?) "
+            + "when age_min is null or ? < age_min then ? else age_min end, "
+            + "age_max = case when ? = 1 then (select max(m.age) from member m where m.team_id = ?) "
+            + "when age_max is null or ? > age_max then ? else age_max end "
+            + "where team_id = ?";
+    private static final String RECOUNT_TEAM = "merge into team_stats (team_id, member_count, age_sum, age_min, age_max) key (team_id) "
+            + "select t.team_id, count(m.member_id), coalesce(sum(m.age), 0), min(m.age), max(m.age) "
+            + "from team t left join member m on m.team_id = t.team_id where t.team_id = ? group by t.team_id";
+    // 다시 세려던 team 이 이미 없으면 통계 row 도 지운다.
+    private static final String DELETE_MISSING_TEAM = "delete from team_stats where team_id = ? "
+            + "and not exists (select 1 from team t where t.team_id = ?)";
+    private static final String TEAMS_OF_MEMBERS = "select distinct m.team_id from member m "
+            + "where m.member_id between :fromId and :toId and m.team_id is not null";
+    private static final String TEAMS_IN_RANGE = "select t.team_id from team t where t.team_id between :fromId and :toId "
+            + "union select s.team_id from team_stats s where s.team_id between :fromId and :toId";
+
+    private final EntityManager em;
+    private final TeamStatsReconciler reconciler;
+    private final Map<SessionImplementor, Map<Long, Delta>> pending = new ConcurrentHashMap<>();
+
+    public TeamStatsUpdater(EntityManager em, EntityWriteEvents entityWriteEvents, TeamStatsReconciler reconciler) {
+        this.em = em;
+        this.reconciler = reconciler;
+        entityWriteEvents.subscribeWrites(this::apply);
+        entityWriteEvents.subscribeBeforeBulkWrites(this::beforeBulk);
+        entityWriteEvents.subscribeBulkWrites(this::applyBulk);
+    }
+
+    private void apply(EntityWrite write) {
+        if (write.entity() instanceof Member member) {
+            applyMember(write, member);
+        } else if (write.entity() instanceof Team team) {
+            switch (write.kind()) {
+                case INSERT -> delta(write.session(), team.getId()).recount = true;
+                case UPDATE -> {
+                    // 이름만 바뀐다. 통계와 상관없다.
+                }
+                case DELETE -> delta(write.session(), team.getId()).deleted = true;
+            }
+        }
+    }
+
+    private void applyMember(EntityWrite write, Member member) {
+        EventSource session = write.session();
+        Long teamId = teamId(member.getTeam());
+        switch (write.kind()) {
+            case INSERT -> add(session, teamId, member.getAge());
+            case DELETE -> remove(session, teamId, member.getAge());
+            case UPDATE -> {
+                if (!write.hasPrevious()) {
+                    if (teamId != null) {
+                        delta(session, teamId).recount = true;
+                    }
+                    return;
+                }
+                Long previousTeamId = teamId((Team) write.previous("team"));
+                int previousAge = (Integer) write.previous("age");
+                if (Objects.equals(previousTeamId, teamId) && previousAge == member.getAge()) {
+                    return;
+                }
+                remove(session, previousTeamId, previousAge);
+                add(session, teamId, member.getAge());
+            }
+        }
+    }
+
+    /**
+     * 지워지거나 다른 team 으로 옮겨질 member 의 지금 team 을 벌크 연산 전에 모아 둔다.
+     */
+    private void beforeBulk(BulkWrite write) {
+        if (write.hasRange() && write.type() == Member.class) {
+            recount(TEAMS_OF_MEMBERS, write);
+        }
+    }
+
+    private void applyBulk(BulkWrite write) {
+        if (write.type() != Member.class && write.type() != Team.class) {
+            return;
+        }
+        if (!write.hasRange()) {
+            reconciler.reconcile();
+        } else if (write.type() == Member.class) {
+            recount(TEAMS_OF_MEMBERS, write);
+        } else {
+            recount(TEAMS_IN_RANGE, write);
+        }
+    }
+
+    private void recount(String teamsQuery, BulkWrite write) {
+        EventSource session = em.unwrap(EventSource.class);
+        @SuppressWarnings("unchecked")
+        List<Number> teamIds = em.createNativeQuery(teamsQuery)
+                .setParameter("fromId", write.fromId())
+                .setParameter("toId", write.toId())
+                .getResultList();
+        for (Number teamId : teamIds) {
+            delta(session, teamId.longValue()).recount = true;
+        }
+    }
+
+    private void add(EventSource session, Long teamId, int age) {
+        if (teamId != null) {
+            delta(session, teamId).add(age);
+        }
+    }
+
+    private void remove(EventSource session, Long teamId, int age) {
+        if (teamId != null) {
+            delta(session, teamId).remove(age);
+        }
+    }
+
+    /**
+     * 이 세션의 트랜잭션에서 처음 바뀐 team 이면 커밋 직전/후 처리를 건다.
+     */
+    private Delta delta(EventSource session, Long teamId) {
+        Map<Long, Delta> deltas = pending.get(session);
+        if (deltas == null) {
+            deltas = new TreeMap<>();
+            pending.put(session, deltas);
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) this::flush);
+            // 롤백되면 모은 증감을 버린다.
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, s) -> pending.remove(s));
+        }
+        return deltas.computeIfAbsent(teamId, id -> new Delta());
+    }
+
+    private void flush(SessionImplementor session) {
+        Map<Long, Delta> deltas = pending.remove(session);
+        if (deltas == null || deltas.isEmpty()) {
+            return;
+        }
+        session.doWork(connection -> {
+            List<Long> updated = new ArrayList<>();
+            List<Long> recount = new ArrayList<>();
+            try (PreparedStatement delete = connection.prepareStatement(DELETE_TEAM);
+                 PreparedStatement update = connection.prepareStatement(APPLY_DELTA)) {
+                for (Map.Entry<Long, Delta> entry : deltas.entrySet()) {
+                    long teamId = entry.getKey();
+                    Delta delta = entry.getValue();
+                    if (delta.deleted) {
+                        delete.setLong(1, teamId);
+                        delete.addBatch();
+                    } else if (delta.recount) {
+                        recount.add(teamId);
+                    } else if (delta.count != 0 || delta.sum != 0 || delta.removed) {
+                        delta.bind(update, teamId);
+                        update.addBatch();
+                        updated.add(teamId);
+                    }
+                }
+                delete.executeBatch();
+                int[] rows = update.executeBatch();
+                for (int i = 0; i < rows.length; i++) {
+                    if (rows[i] == 0) {
+                        recount.add(updated.get(i));
+                    }
+                }
+            }
+            recount(connection, recount);
+        });
+    }
+
+    private void recount(Connection connection, List<Long> teamIds) throws SQLException {
+        if (teamIds.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement merge = connection.prepareStatement(RECOUNT_TEAM);
+             PreparedStatement delete = connection.prepareStatement(DELETE_MISSING_TEAM)) {
+            for (Long teamId : teamIds) {
+                merge.setLong(1, teamId);
+                merge.addBatch();
+                delete.setLong(1, teamId);
+                delete.setLong(2, teamId);
+                delete.addBatch();
+            }
+            merge.executeBatch();
+            delete.executeBatch();
+        }
+    }
+
+    private static Long teamId(Team team) {
+        return team != null ? team.getId() : null;
+    }
+
+    /**
+     * 한 트랜잭션에서 team 하나에 쌓인 증감.
+     */
+    private static final class Delta {
+
+        private long count;
+        private long sum;
+        private Integer addedMin;
+        private Integer addedMax;
+        // 빠진 나이가 min/max 였을 수 있으므로 다시 구한다.
+        private boolean removed;
+        private boolean recount;
+        private boolean deleted;
+
+        void add(int age) {
+            count++;
+            sum += age;
+            addedMin = addedMin == null ? age : Math.min(addedMin, age);
+            addedMax = addedMax == null ? age : Math.max(addedMax, age);
+        }
+
+        void remove(int age) {
+            count--;
+            sum -= age;
+            removed = true;
+        }
+
+        void bind(PreparedStatement statement, long teamId) throws SQLException {
+            int rescan = removed ? 1 : 0;
+            statement.setLong(1, count);
+            statement.setLong(2, sum);
+            statement.setInt(3, rescan);
+            statement.setLong(4, teamId);
+            statement.setObject(5, addedMin, Types.INTEGER);
+            statement.setObject(6, addedMin, Types.INTEGER);
+            statement.setInt(7, rescan);
+            statement.setLong(8, teamId);
+            statement.setObject(9, addedMax, Types.INTEGER);
+            statement.setObject(10, addedMax, Types.INTEGER);
+            statement.setLong(11, teamId);
+        }
+    }
+}
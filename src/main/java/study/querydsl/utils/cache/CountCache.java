@@ -0,0 +1,110 @@
+package study.querydsl.utils.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.utils.event.EntityWriteEvents;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 페이징 total count 캐시. 같은 조건으로 페이지만 넘길 때는 count 쿼리를 다시 날리지 않는다.
+ * <p>
+ * 크기가 넘치면 가장 오래 안 쓴 항목부터 버리고(LRU), 엔티티가 insert/update/delete 되면 전부 비운다.
+ * 비우는 동안 계산 중이던 값은 이미 낡았을 수 있으므로 저장하지 않는다.
+ * 커밋 전 변경을 flush 한 트랜잭션 안에서는 캐시를 거치지 않는다. 그 count 는 커밋 전 값이라 다른 스레드에 보이면 안 되고,
+ * 반대로 캐시에 있는 값에는 이 트랜잭션의 변경이 빠져 있다.
+ */
+@Component
+public class CountCache implements MeterBinder {
+
+    private final EntityWriteEvents entityWriteEvents;
+    private final Map<Object, Long> counts;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private long generation;
+
+    public CountCache(@Value("${querydsl.count-cache.max-size:10000}") int maxSize,
+                      EntityWriteEvents entityWriteEvents) {
+        this.entityWriteEvents = entityWriteEvents;
+        this.counts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Long> eldest) {
+                return size() > maxSize;
+            }
+        };
+        entityWriteEvents.subscribe(type -> invalidate());
+    }
+
+    public long get(Object key, LongSupplier loader) {
+        if (entityWriteEvents.hasUncommittedWrites()) {
+            misses.increment();
+            return loader.getAsLong();
+        }
+        long loadGeneration;
+        synchronized (this) {
+            Long cached = counts.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+        long count = loader.getAsLong();
+        synchronized (this) {
+            if (loadGeneration == generation) {
+                counts.put(key, count);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 캐시에 있으면 반환하고, 없으면 null. 없을 때 미리 다른 곳에서 count 를 돌려 두려는 경우에 쓴다.
+     */
+    public synchronized Long peek(Object key) {
+        if (entityWriteEvents.hasUncommittedWrites()) {
+            return null;
+        }
+        Long cached = counts.get(key);
+        if (cached != null) {
+            hits.increment();
+        }
+        return cached;
+    }
+
+    public synchronized void invalidate() {
+        generation++;
+        counts.clear();
+    }
+
+    public synchronized int size() {
+        return counts.size();
+    }
+
+    public double hitRatio() {
+        double total = hits.doubleValue() + misses.doubleValue();
+        return total == 0 ? 0 : hits.doubleValue() / total;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("querydsl.count.cache.requests", hits, LongAdder::doubleValue)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("querydsl.count.cache.requests", misses, LongAdder::doubleValue)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("querydsl.count.cache.hit.ratio", this, CountCache::hitRatio)
+                .register(registry);
+        Gauge.builder("querydsl.count.cache.size", this, CountCache::size)
+                .register(registry);
+    }
+}
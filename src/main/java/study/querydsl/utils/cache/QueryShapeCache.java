@@ -0,0 +1,217 @@
+package study.querydsl.utils.cache;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.*;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.utils.timeout.QueryTimeouts;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+/**
+ * 동적 쿼리의 "모양(shape)" 별로 직렬화한 JPQL 을 캐시한다.
+ * <p>
+ * 조건 값은 {@link com.querydsl.core.types.dsl.Param} 으로 두고, 어떤 조건이 들어왔는지만으로 모양을 구분한다.
+ * 조건은 and 를 풀어서 순서와 상관없는 집합으로 비교하므로 BooleanBuilder 로 만들든 where 파라미터로 넘기든
+ * 같은 모양이면 같은 JPQL 을 쓴다. 캐시에 있으면 쿼리 트리를 다시 만들거나 직렬화하지 않고 값만 바인딩한다.
+ * JPQL 문자열이 고정되므로 Hibernate 의 쿼리 플랜 캐시도 재사용된다.
+ * 실행할 때는 TimedJPAQuery 와 같이 현재 쿼리 시간 예산을 붙이고, 읽기 전용 트랜잭션이면 ReadOnlyAwareQueryFactory 와 같은
+ * read-only/fetch size 힌트를 붙인다.
+ * <p>
+ * max-shapes 를 넘으면 가장 오래 안 쓴 모양부터 버린다(LRU). 버린 수는 메트릭으로 남기고 처음 한 번 경고를 남긴다.
+ */
+@Slf4j
+@Component
+public class QueryShapeCache implements MeterBinder {
+
+    private final QueryTimeouts queryTimeouts;
+    private final int readOnlyFetchSize;
+    private final Map<ShapeKey, CompiledQuery> compiled;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public QueryShapeCache(@Value("${querydsl.query-shape-cache.max-shapes:1000}") int maxShapes,
+                           @Value("${querydsl.read-only.fetch-size:500}") int readOnlyFetchSize,
+                           QueryTimeouts queryTimeouts) {
+        this.queryTimeouts = queryTimeouts;
+        this.readOnlyFetchSize = readOnlyFetchSize;
+        this.compiled = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ShapeKey, CompiledQuery> eldest) {
+                if (size() <= maxShapes) {
+                    return false;
+                }
+                if (evictions.sum() == 0) {
+                    log.warn("Query shape cache is full ({} shapes), evicting least recently used shapes", maxShapes);
+                }
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @param name       쿼리 이름. 같은 이름이면 shape 함수도 같아야 한다.
+     * @param shape      정렬된 조건을 받아 쿼리를 만든다. 캐시에 없을 때만 호출된다.
+     * @param bindings   조건에 쓰인 Param 의 값
+     * @param conditions 이번 요청의 조건. null 은 무시한다.
+     */
+    public <T> List<T> fetch(EntityManager em,
+                             String name,
+                             Function<Predicate[], JPAQuery<T>> shape,
+                             Map<? extends ParamExpression<?>, ?> bindings,
+                             Predicate... conditions) {
+        CompiledQuery query = compiled(em, name, shape, conditions);
+        return query.execute(createQuery(em, query, bindings));
+    }
+
+    /**
+     * fetch 가 실행할 쿼리를 값까지 바인딩해서 만든다. (힌트 확인용)
+     */
+    <T> Query createQuery(EntityManager em,
+                          String name,
+                          Function<Predicate[], JPAQuery<T>> shape,
+                          Map<? extends ParamExpression<?>, ?> bindings,
+                          Predicate... conditions) {
+        return createQuery(em, compiled(em, name, shape, conditions), bindings);
+    }
+
+    private Query createQuery(EntityManager em, CompiledQuery compiled, Map<? extends ParamExpression<?>, ?> bindings) {
+        Query query = compiled.bind(queryTimeouts.apply(em.createQuery(compiled.jpql())), bindings);
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            query.setHint(HINT_READ_ONLY, true);
+            query.setHint(HINT_FETCH_SIZE, readOnlyFetchSize);
+            query.setFlushMode(FlushModeType.COMMIT);
+        }
+        return query;
+    }
+
+    private <T> CompiledQuery compiled(EntityManager em,
+                                       String name,
+                                       Function<Predicate[], JPAQuery<T>> shape,
+                                       Predicate... conditions) {
+        Set<Predicate> conjuncts = new HashSet<>();
+        for (Predicate condition : conditions) {
+            flatten(condition, conjuncts);
+        }
+        ShapeKey key = new ShapeKey(name, conjuncts);
+
+        CompiledQuery query;
+        synchronized (this) {
+            query = compiled.get(key);
+        }
+        if (query != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            query = compile(em, shape.apply(canonicalOrder(conjuncts)));
+            synchronized (this) {
+                compiled.putIfAbsent(key, query);
+            }
+        }
+        return query;
+    }
+
+    private static void flatten(Predicate predicate, Set<Predicate> conjuncts) {
+        if (predicate instanceof BooleanBuilder) {
+            predicate = ((BooleanBuilder) predicate).getValue();
+        }
+        if (predicate == null) {
+            return;
+        }
+        if (predicate instanceof Operation && ((Operation<?>) predicate).getOperator() == Ops.AND) {
+            for (Expression<?> arg : ((Operation<?>) predicate).getArgs()) {
+                flatten((Predicate) arg, conjuncts);
+            }
+            return;
+        }
+        conjuncts.add(predicate);
+    }
+
+    private static Predicate[] canonicalOrder(Set<Predicate> conjuncts) {
+        return conjuncts.stream()
+                .sorted(Comparator.comparing(Object::toString))
+                .toArray(Predicate[]::new);
+    }
+
+    private static CompiledQuery compile(EntityManager em, JPAQuery<?> query) {
+        JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+        serializer.serialize(query.getMetadata(), false, null);
+        Expression<?> projection = query.getMetadata().getProjection();
+        FactoryExpression<?> factory = projection instanceof FactoryExpression
+                ? FactoryExpressionUtils.wrap((FactoryExpression<?>) projection)
+                : null;
+        return new CompiledQuery(serializer.toString(), List.copyOf(serializer.getConstants()), factory);
+    }
+
+    public synchronized int size() {
+        return compiled.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("querydsl.query.shape.cache.requests", hits, LongAdder::doubleValue)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("querydsl.query.shape.cache.requests", misses, LongAdder::doubleValue)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("querydsl.query.shape.cache.evictions", evictions, LongAdder::doubleValue)
+                .register(registry);
+        Gauge.builder("querydsl.query.shape.cache.size", this, QueryShapeCache::size)
+                .register(registry);
+    }
+
+    private record ShapeKey(String name, Set<Predicate> conjuncts) {
+    }
+
+    private record CompiledQuery(String jpql, List<Object> constants, FactoryExpression<?> factory) {
+
+        Query bind(Query query, Map<? extends ParamExpression<?>, ?> bindings) {
+            for (int i = 0; i < constants.size(); i++) {
+                Object value = constants.get(i);
+                if (value instanceof ParamExpression) {
+                    ParamExpression<?> param = (ParamExpression<?>) value;
+                    value = bindings.get(param);
+                    if (value == null) {
+                        throw new ParamNotSetException(param);
+                    }
+                }
+                query.setParameter(i + 1, value);
+            }
+            return query;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> List<T> execute(Query query) {
+            List<?> rows = query.getResultList();
+            if (factory == null) {
+                return (List<T>) rows;
+            }
+            List<T> results = new ArrayList<>(rows.size());
+            for (Object row : rows) {
+                Object[] args = row instanceof Object[] ? (Object[]) row : new Object[]{row};
+                results.add((T) factory.newInstance(args));
+            }
+            return results;
+        }
+    }
+}
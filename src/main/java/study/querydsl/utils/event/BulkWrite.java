@@ -0,0 +1,12 @@
+package study.querydsl.utils.event;
+
+/**
+ * 엔티티 이벤트 없이 실행된 JPQL 벌크 update/delete.
+ * fromId ~ toId 는 벌크 연산이 건드렸을 수 있는 id 범위다. 둘 다 null 이면 범위를 모르는 것이므로 전체가 바뀌었다고 봐야 한다.
+ */
+public record BulkWrite(Class<?> type, Long fromId, Long toId) {
+
+    public boolean hasRange() {
+        return fromId != null && toId != null;
+    }
+}
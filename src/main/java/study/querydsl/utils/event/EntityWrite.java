@@ -0,0 +1,32 @@
+package study.querydsl.utils.event;
+
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.util.Assert;
+
+/**
+ * flush 중에 일어난 엔티티 한 건의 insert/update/delete.
+ * session 은 flush 중인 세션이다. session.doWork 로 같은 커넥션(= 같은 트랜잭션)에서 SQL 을 실행할 수 있다.
+ * 이 시점에 엔티티를 persist 하거나 lazy 로딩을 일으키면 안 된다.
+ * <p>
+ * previousState 는 update 전(delete 는 삭제 시점) 값이다. insert 이거나 Hibernate 가 이전 값을 모르면(detached 엔티티 update 등) null 이다.
+ */
+public record EntityWrite(Kind kind, Object entity, Object id, EventSource session,
+                          EntityPersister persister, Object[] previousState) {
+
+    public enum Kind {
+        INSERT, UPDATE, DELETE
+    }
+
+    public boolean hasPrevious() {
+        return previousState != null;
+    }
+
+    /**
+     * 프로퍼티의 이전 값. 연관 관계는 엔티티(프록시일 수 있다)가 들어 있다.
+     */
+    public Object previous(String property) {
+        Assert.state(previousState != null, "Previous state is not available!!");
+        return previousState[persister.getEntityMetamodel().getPropertyIndex(property)];
+    }
+}
@@ -0,0 +1,200 @@
+package study.querydsl.utils.event;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Hibernate insert/update/delete 이벤트를 받아 "이 엔티티 타입이 바뀌었다" 고 구독자에게 알려준다.
+ * <p>
+ * flush 시점에 한 번 알리고(같은 트랜잭션 안의 후속 조회용), 트랜잭션이 끝나면(커밋/롤백) 한 번 더 알린다.
+ * flush 와 커밋 사이에 다른 스레드가 이전 값으로 캐시를 채울 수 있기 때문이다.
+ * JPQL 벌크 연산(update/delete execute)은 엔티티 이벤트가 발생하지 않으므로 여기서 잡히지 않는다.
+ * <p>
+ * 어떤 엔티티가 어떻게 바뀌었는지까지 필요하면 subscribeWrites 로 등록한다. 이쪽은 flush 중에 같은 세션으로 바로 호출되므로
+ * 같은 트랜잭션 안에서 다른 테이블을 함께 고칠 때(파생 테이블 유지 등) 쓴다.
+ * 이런 구독자는 벌크 연산도 subscribeBulkWrites 로 받아서 그 범위를 고쳐야 한다. bulkChanged 를 부른 트랜잭션 안에서 바로 호출된다.
+ * 지워질 row 의 이전 값이 필요하면(어느 team 에 속했었는지 등) subscribeBeforeBulkWrites 로 벌크 연산 직전에 받는다.
+ */
+@Component
+public class EntityWriteEvents implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final List<Consumer<Class<?>>> subscribers = new CopyOnWriteArrayList<>();
+    private final List<Consumer<EntityWrite>> writeSubscribers = new CopyOnWriteArrayList<>();
+    private final List<Consumer<BulkWrite>> beforeBulkWriteSubscribers = new CopyOnWriteArrayList<>();
+    private final List<Consumer<BulkWrite>> bulkWriteSubscribers = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Boolean> writesSuspended = new ThreadLocal<>();
+
+    public EntityWriteEvents(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    public void subscribe(Consumer<Class<?>> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void subscribeWrites(Consumer<EntityWrite> subscriber) {
+        writeSubscribers.add(subscriber);
+    }
+
+    public void subscribeBulkWrites(Consumer<BulkWrite> subscriber) {
+        bulkWriteSubscribers.add(subscriber);
+    }
+
+    public void subscribeBeforeBulkWrites(Consumer<BulkWrite> subscriber) {
+        beforeBulkWriteSubscribers.add(subscriber);
+    }
+
+    /**
+     * 닫을 때까지 현재 스레드의 flush 에서 subscribeWrites 구독자를 부르지 않는다. (대량 적재에서 row 마다 파생 테이블을 고치지 않도록)
+     * 끝난 뒤 bulkChanged 로 알려서 파생 테이블을 한 번에 다시 만들어야 한다. subscribe 구독자(캐시 무효화)는 그대로 알린다.
+     */
+    public Suspension suspendWrites() {
+        Suspension suspension = new Suspension(writesSuspended.get());
+        writesSuspended.set(Boolean.TRUE);
+        return suspension;
+    }
+
+    /**
+     * JPQL 벌크 update/delete 는 엔티티 이벤트가 없으므로 실행한 쪽에서 직접 알린다. 어느 row 가 바뀌었는지 모르는 경우다.
+     */
+    public void bulkChanged(Class<?> type) {
+        bulkWritten(new BulkWrite(type, null, null));
+        changed(type);
+    }
+
+    /**
+     * id 가 fromId ~ toId 인 row 에 벌크 연산을 실행하기 직전. 실행한 뒤에는 같은 범위로 bulkChanged 를 불러야 한다.
+     */
+    public void bulkChanging(Class<?> type, long fromId, long toId) {
+        BulkWrite write = new BulkWrite(type, fromId, toId);
+        for (Consumer<BulkWrite> subscriber : beforeBulkWriteSubscribers) {
+            subscriber.accept(write);
+        }
+    }
+
+    /**
+     * id 가 fromId ~ toId 인 row 만 바뀌었을 수 있는 벌크 연산. (Querydsl4RepositorySupport 의 청크 단위 벌크 연산)
+     */
+    public void bulkChanged(Class<?> type, long fromId, long toId) {
+        bulkWritten(new BulkWrite(type, fromId, toId));
+        changed(type);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        written(new EntityWrite(EntityWrite.Kind.INSERT, event.getEntity(), event.getId(), event.getSession(),
+                event.getPersister(), null));
+        changed(event.getPersister().getMappedClass());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        written(new EntityWrite(EntityWrite.Kind.UPDATE, event.getEntity(), event.getId(), event.getSession(),
+                event.getPersister(), event.getOldState()));
+        changed(event.getPersister().getMappedClass());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        written(new EntityWrite(EntityWrite.Kind.DELETE, event.getEntity(), event.getId(), event.getSession(),
+                event.getPersister(), event.getDeletedState()));
+        changed(event.getPersister().getMappedClass());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * 현재 트랜잭션이 flush 했지만 아직 커밋/롤백하지 않은 변경이 있는지. 있으면 이 트랜잭션에서 읽은 값은 다른 스레드와 공유하면 안 된다.
+     */
+    public boolean hasUncommittedWrites() {
+        return TransactionSynchronizationManager.getResource(this) != null;
+    }
+
+    private void changed(Class<?> type) {
+        publish(type);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Class<?>> pending = (Set<Class<?>>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<Class<?>> types = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, types);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(EntityWriteEvents.this);
+                    types.forEach(EntityWriteEvents.this::publish);
+                }
+            });
+            pending = types;
+        }
+        pending.add(type);
+    }
+
+    private void written(EntityWrite write) {
+        if (writesSuspended.get() != null) {
+            return;
+        }
+        for (Consumer<EntityWrite> subscriber : writeSubscribers) {
+            subscriber.accept(write);
+        }
+    }
+
+    private void bulkWritten(BulkWrite write) {
+        for (Consumer<BulkWrite> subscriber : bulkWriteSubscribers) {
+            subscriber.accept(write);
+        }
+    }
+
+    private void publish(Class<?> type) {
+        for (Consumer<Class<?>> subscriber : subscribers) {
+            subscriber.accept(type);
+        }
+    }
+
+    public final class Suspension implements AutoCloseable {
+
+        private final Boolean previous;
+
+        private Suspension(Boolean previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                writesSuspended.remove();
+            } else {
+                writesSuspended.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package study.querydsl.utils.metrics;
+
+/**
+ * 검색 조건 객체가 구현한다. 어떤 조건이 채워졌는지(값 말고 조합)를 짧은 문자열로 돌려준다.
+ * 리포지토리 메트릭의 shape 태그로 쓰이므로 조합 수가 유한해야 한다.
+ */
+public interface QueryShape {
+
+    String queryShape();
+}
@@ -0,0 +1,147 @@
+package study.querydsl.utils.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 리포지토리 메서드 단위 메트릭.
+ * <ul>
+ *     <li>querydsl.repository.calls - 메서드 전체 시간 (class, method, shape, outcome)</li>
+ *     <li>querydsl.repository.rows - 반환한 row 수</li>
+ *     <li>querydsl.repository.phase - 그 안에서 컨텐츠 쿼리(phase=content)와 count 쿼리(phase=count)에 쓴 시간</li>
+ * </ul>
+ * 미터는 (메서드, shape) 조합마다 처음 한 번만 만들고 이후에는 맵에서 꺼내 쓴다.
+ */
+@Component
+public class RepositoryMetrics {
+
+    static final String NO_SHAPE = "none";
+    private static final double[] PERCENTILES = {0.5, 0.99};
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<Key, Meters> meters = new ConcurrentHashMap<>();
+    private final ThreadLocal<Meters> current = new ThreadLocal<>();
+
+    public RepositoryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * 컨텐츠 쿼리 시간을 잰다. 계측 중인 리포지토리 메서드 밖에서 불리면 그냥 실행만 한다.
+     */
+    public <T> T content(Supplier<T> query) {
+        Meters active = current.get();
+        if (active == null) {
+            return query.get();
+        }
+        long start = System.nanoTime();
+        try {
+            return query.get();
+        } finally {
+            active.content().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * count 쿼리 시간을 잰다. 캐시에서 꺼낸 값은 쿼리가 아니므로 실제로 실행할 때만 감싸야 한다.
+     */
+    public long count(LongSupplier query) {
+        return bindCount(query).getAsLong();
+    }
+
+    /**
+     * 지금 계측 중인 메서드의 count 타이머로 재도록 감싼다. 다른 스레드에서 실행할 count 에 쓴다.
+     */
+    public LongSupplier bindCount(LongSupplier query) {
+        Meters active = current.get();
+        if (active == null) {
+            return query;
+        }
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                return query.getAsLong();
+            } finally {
+                active.count().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    Invocation begin(Class<?> type, Method method, String shape) {
+        Meters invoked = meters.computeIfAbsent(new Key(type, method, shape), this::create);
+        Meters outer = current.get();
+        current.set(invoked);
+        return new Invocation(invoked, outer, System.nanoTime());
+    }
+
+    private Meters create(Key key) {
+        String type = key.type().getSimpleName();
+        String method = key.method().getName();
+        return new Meters(
+                callTimer(type, method, key.shape(), "success"),
+                callTimer(type, method, key.shape(), "error"),
+                DistributionSummary.builder("querydsl.repository.rows")
+                        .tags("class", type, "method", method, "shape", key.shape())
+                        .publishPercentiles(PERCENTILES)
+                        .register(registry),
+                phaseTimer(type, method, key.shape(), "content"),
+                phaseTimer(type, method, key.shape(), "count"));
+    }
+
+    private Timer callTimer(String type, String method, String shape, String outcome) {
+        return Timer.builder("querydsl.repository.calls")
+                .tags("class", type, "method", method, "shape", shape, "outcome", outcome)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Timer phaseTimer(String type, String method, String shape, String phase) {
+        return Timer.builder("querydsl.repository.phase")
+                .tags("class", type, "method", method, "shape", shape, "phase", phase)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private record Key(Class<?> type, Method method, String shape) {
+    }
+
+    private record Meters(Timer success, Timer error, DistributionSummary rows, Timer content, Timer count) {
+    }
+
+    final class Invocation {
+
+        private final Meters meters;
+        private final Meters outer;
+        private final long start;
+
+        private Invocation(Meters meters, Meters outer, long start) {
+            this.meters = meters;
+            this.outer = outer;
+            this.start = start;
+        }
+
+        void end(boolean success, long rows) {
+            long elapsed = System.nanoTime() - start;
+            if (outer == null) {
+                current.remove();
+            } else {
+                current.set(outer);
+            }
+            (success ? meters.success() : meters.error()).record(elapsed, TimeUnit.NANOSECONDS);
+            if (rows >= 0) {
+                meters.rows().record(rows);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package study.querydsl.utils.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import study.querydsl.utils.support.KeysetSlice;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * @Repository 클래스와 Querydsl4RepositorySupport 를 상속한 리포지토리의 public 메서드를 잰다.
+ * Querydsl4RepositorySupport 자체의 getter/setter 는 제외한다.
+ */
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+    private final RepositoryMetrics metrics;
+
+    public RepositoryMetricsAspect(RepositoryMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Around("execution(public * *(..))"
+            + " && (@within(org.springframework.stereotype.Repository)"
+            + " || within(study.querydsl.utils.support.Querydsl4RepositorySupport+))"
+            + " && !execution(* study.querydsl.utils.support.Querydsl4RepositorySupport.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        RepositoryMetrics.Invocation invocation = metrics.begin(
+                AopUtils.getTargetClass(joinPoint.getTarget()),
+                ((MethodSignature) joinPoint.getSignature()).getMethod(),
+                shapeOf(joinPoint.getArgs()));
+        boolean success = false;
+        Object result = null;
+        try {
+            result = joinPoint.proceed();
+            success = true;
+            return result;
+        } finally {
+            invocation.end(success, rowsOf(result));
+        }
+    }
+
+    private static String shapeOf(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof QueryShape) {
+                return ((QueryShape) arg).queryShape();
+            }
+        }
+        return RepositoryMetrics.NO_SHAPE;
+    }
+
+    /**
+     * 결과에서 row 수를 알 수 없으면 -1.
+     */
+    private static long rowsOf(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof KeysetSlice) {
+            return ((KeysetSlice<?>) result).getContent().size();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        return -1;
+    }
+}
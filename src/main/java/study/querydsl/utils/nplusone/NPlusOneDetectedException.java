@@ -0,0 +1,16 @@
+package study.querydsl.utils.nplusone;
+
+import lombok.Getter;
+
+@Getter
+public class NPlusOneDetectedException extends RuntimeException {
+
+    private final String statement;
+    private final int count;
+
+    public NPlusOneDetectedException(String statement, int count) {
+        super("N+1 query detected: executed " + count + " times - " + statement);
+        this.statement = statement;
+        this.count = count;
+    }
+}
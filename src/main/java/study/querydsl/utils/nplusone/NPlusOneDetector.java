@@ -0,0 +1,188 @@
+package study.querydsl.utils.nplusone;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Hibernate 가 날리는 SQL 을 보고 N+1 을 찾는다.
+ * <p>
+ * 요청(NPlusOneFilter) 또는 트랜잭션 단위로 select 문을 리터럴/주석/in 목록 길이를 지운 모양으로 센다.
+ * 파라미터만 다른 같은 select 가 threshold 를 넘게 나가면 lazy 로딩이 row 마다 쿼리를 날리고 있다는 뜻이다.
+ * 범위 밖(요청도 트랜잭션도 아닌 곳)에서 나가는 SQL 은 세지 않는다.
+ * <p>
+ * 요청/트랜잭션 범위는 모양별 횟수만 들고 있는다. SQL 원문이 필요하면(테스트, 실행 계획 확인) openCapturing 으로 연다.
+ */
+@Slf4j
+@Component
+public class NPlusOneDetector implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final NPlusOneProperties properties;
+    private final ThreadLocal<Scope> current = new ThreadLocal<>();
+
+    public NPlusOneDetector(NPlusOneProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    /**
+     * 새 감지 범위를 연다. 닫으면 바깥 범위로 돌아간다.
+     */
+    public Scope open() {
+        return open(false);
+    }
+
+    /**
+     * open 과 같고, 범위 안에서 나간 select 문 원문도 모아 둔다. (Scope#executed)
+     */
+    public Scope openCapturing() {
+        return open(true);
+    }
+
+    private Scope open(boolean capturing) {
+        Scope scope = new Scope(current.get(), capturing);
+        current.set(scope);
+        return scope;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (properties.getMode() == NPlusOneProperties.Mode.OFF) {
+            return sql;
+        }
+        String statement = normalize(sql);
+        if (!statement.startsWith("select") && !statement.startsWith("with")) {
+            return sql;
+        }
+        Scope scope = current.get();
+        if (scope == null) {
+            scope = openTransactionScope();
+            if (scope == null) {
+                return sql;
+            }
+        }
+        int count = scope.record(statement, sql);
+        if (count > properties.getThreshold() && scope.reported.add(statement)) {
+            if (properties.getMode() == NPlusOneProperties.Mode.FAIL) {
+                throw new NPlusOneDetectedException(statement, count);
+            }
+            log.warn("N+1 query detected: executed {} times - {}", count, statement);
+        }
+        return sql;
+    }
+
+    private Scope openTransactionScope() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Scope scope = open();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                scope.close();
+            }
+        });
+        return scope;
+    }
+
+    static String normalize(String sql) {
+        String statement = COMMENT.matcher(sql).replaceAll(" ");
+        statement = STRING_LITERAL.matcher(statement).replaceAll("?");
+        statement = NUMBER_LITERAL.matcher(statement).replaceAll("?");
+        statement = WHITESPACE.matcher(statement).replaceAll(" ").trim().toLowerCase();
+        // batch fetch 의 in (?, ?, ...) 는 개수만 다를 뿐 같은 쿼리다.
+        return IN_LIST.matcher(statement).replaceAll("(?)");
+    }
+
+    public final class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private final Map<String, Integer> counts = new LinkedHashMap<>();
+        private final List<String> executed;
+        private final Set<String> reported = new HashSet<>();
+        private int total;
+
+        private Scope(Scope parent, boolean capturing) {
+            this.parent = parent;
+            this.executed = capturing ? new ArrayList<>() : null;
+        }
+
+        private int record(String statement, String sql) {
+            total++;
+            if (executed != null) {
+                executed.add(sql);
+            }
+            return counts.merge(statement, 1, Integer::sum);
+        }
+
+        /**
+         * 범위 안에서 나간 select 수.
+         */
+        public int total() {
+            return total;
+        }
+
+        /**
+         * 범위 안에서 나간 select 문 원문(바인딩 전, ? 포함). 실행 계획 확인 등에 쓴다. openCapturing 으로 연 범위에서만 쓸 수 있다.
+         */
+        public List<String> executed() {
+            Assert.state(executed != null, "Scope was not opened with openCapturing!!");
+            return Collections.unmodifiableList(executed);
+        }
+
+        /**
+         * 정규화한 select 문별 실행 횟수.
+         */
+        public Map<String, Integer> statements() {
+            return Collections.unmodifiableMap(counts);
+        }
+
+        /**
+         * min 번 이상 나간 select 문.
+         */
+        public Map<String, Integer> repeated(int min) {
+            Map<String, Integer> repeated = new LinkedHashMap<>();
+            counts.forEach((statement, count) -> {
+                if (count >= min) {
+                    repeated.put(statement, count);
+                }
+            });
+            return repeated;
+        }
+
+        @Override
+        public void close() {
+            if (current.get() == this) {
+                if (parent == null) {
+                    current.remove();
+                } else {
+                    current.set(parent);
+                }
+            }
+        }
+    }
+}
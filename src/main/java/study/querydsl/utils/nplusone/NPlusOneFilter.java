@@ -0,0 +1,31 @@
+package study.querydsl.utils.nplusone;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 요청 하나를 N+1 감지 범위로 묶는다. 요청 안에서 트랜잭션이 여러 번 열려도 합쳐서 센다.
+ */
+@Component
+public class NPlusOneFilter extends OncePerRequestFilter {
+
+    private final NPlusOneDetector detector;
+
+    public NPlusOneFilter(NPlusOneDetector detector) {
+        this.detector = detector;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (NPlusOneDetector.Scope ignored = detector.open()) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.utils.nplusone;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * N+1 감지 설정. (querydsl.n-plus-one.*)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "querydsl.n-plus-one")
+public class NPlusOneProperties {
+
+    private Mode mode = Mode.WARN;
+
+    /** 한 요청(트랜잭션) 안에서 파라미터만 다른 같은 select 가 이 횟수를 넘으면 N+1 로 본다. */
+    private int threshold = 10;
+
+    public enum Mode {
+        /** 감지하지 않는다. */
+        OFF,
+        /** 경고 로그만 남긴다. */
+        WARN,
+        /** NPlusOneDetectedException 을 던진다. 테스트에서 회귀를 잡을 때 쓴다. */
+        FAIL
+    }
+}
@@ -0,0 +1,203 @@
+package study.querydsl.utils.seed;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import study.querydsl.domain.member.entity.Member;
+import study.querydsl.domain.team.entity.Team;
+import study.querydsl.utils.event.EntityWriteEvents;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 대량 샘플 데이터 생성기.
+ * <p>
+ * 팀을 연속 구간으로 나눠 writer 스레드마다 맡기고, 각 스레드는 팀 하나와 그 팀의 멤버를 이어서 저장한다.
+ * batchSize 마다 flush/clear 해서 JDBC 배치로 내보내고 영속성 컨텍스트를 비우며,
+ * flushesPerCommit 번마다 커밋해서 트랜잭션을 짧게 유지한다.
+ * id 는 Hibernate 기본 시퀀스 pooled optimizer 가 한 번에 여러 개씩 할당한다.
+ * member 는 team 의 id 로 만든 참조로 FK 만 채우고 Team 인스턴스는 청크를 넘어 들고 있지 않는다.
+ * (Member 생성자는 team.members 에 자신을 넣으므로 큰 팀의 멤버가 전부 힙에 남는다)
+ * <p>
+ * 적재하는 동안에는 파생 테이블(member_search_view, member_username_gram, team_stats)을 row 마다 고치지 않고,
+ * 다 넣은 뒤 EntityWriteEvents#bulkChanged 로 한 번에 다시 만든다.
+ */
+@Slf4j
+@Component
+public class DataSeeder {
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityWriteEvents entityWriteEvents;
+
+    public DataSeeder(EntityManager em, PlatformTransactionManager transactionManager, EntityWriteEvents entityWriteEvents) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityWriteEvents = entityWriteEvents;
+    }
+
+    public long seed(SeedProperties properties) {
+        Assert.isTrue(properties.getTeams() > 0, "Seed teams must be greater than zero!!");
+        Assert.isTrue(properties.getBatchSize() > 0, "Seed batch size must be greater than zero!!");
+        long[] teamSizes = teamSizes(properties);
+        List<TeamRange> ranges = partition(teamSizes, properties.getWriterThreads());
+        long startedAt = System.currentTimeMillis();
+        log.info("seeding {} members over {} teams with {} writer(s)",
+                properties.getMembers(), properties.getTeams(), ranges.size());
+
+        ExecutorService writers = Executors.newFixedThreadPool(Math.max(1, ranges.size()));
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (TeamRange range : ranges) {
+                results.add(writers.submit(() -> new RangeWriter(properties, teamSizes, range).write()));
+            }
+            long written = 0;
+            for (Future<Long> result : results) {
+                written += result.get();
+            }
+            log.info("seeded {} members in {} ms", written, System.currentTimeMillis() - startedAt);
+            long rebuildStartedAt = System.currentTimeMillis();
+            transactionTemplate.executeWithoutResult(status -> entityWriteEvents.bulkChanged(Member.class));
+            log.info("rebuilt derived tables in {} ms", System.currentTimeMillis() - rebuildStartedAt);
+            return written;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Seeding interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Seeding failed", e.getCause());
+        } finally {
+            writers.shutdownNow();
+        }
+    }
+
+    static long[] teamSizes(SeedProperties properties) {
+        int teams = properties.getTeams();
+        long members = properties.getMembers();
+        double[] weights = new double[teams];
+        double total = 0;
+        for (int i = 0; i < teams; i++) {
+            weights[i] = switch (properties.getTeamSize().getDistribution()) {
+                case UNIFORM -> 1.0;
+                case ZIPF -> 1.0 / Math.pow(i + 1, properties.getTeamSize().getSkew());
+            };
+            total += weights[i];
+        }
+
+        long[] sizes = new long[teams];
+        long assigned = 0;
+        for (int i = 0; i < teams; i++) {
+            sizes[i] = (long) (members * weights[i] / total);
+            assigned += sizes[i];
+        }
+        // 나머지는 앞쪽 팀부터 하나씩 더 준다.
+        for (int i = 0; assigned < members; i = (i + 1) % teams, assigned++) {
+            sizes[i]++;
+        }
+        return sizes;
+    }
+
+    // 스레드마다 멤버 수가 비슷하도록 팀을 연속 구간으로 자른다.
+    static List<TeamRange> partition(long[] teamSizes, int writerThreads) {
+        long total = 0;
+        for (long size : teamSizes) {
+            total += size;
+        }
+        long perWriter = Math.max(1, total / Math.max(1, writerThreads));
+
+        List<TeamRange> ranges = new ArrayList<>();
+        int from = 0;
+        long firstMember = 0;
+        long acc = 0;
+        for (int i = 0; i < teamSizes.length; i++) {
+            acc += teamSizes[i];
+            boolean last = i == teamSizes.length - 1;
+            if (last || (acc >= perWriter && ranges.size() < writerThreads - 1)) {
+                ranges.add(new TeamRange(from, i + 1, firstMember));
+                firstMember += acc;
+                from = i + 1;
+                acc = 0;
+            }
+        }
+        return ranges;
+    }
+
+    record TeamRange(int fromTeam, int toTeam, long firstMember) {
+    }
+
+    private class RangeWriter {
+
+        private final SeedProperties properties;
+        private final long[] teamSizes;
+        private final TeamRange range;
+        private final Random random;
+
+        private int nextTeam;
+        private Long currentTeamId;
+        private long remainingInTeam;
+        private long nextMember;
+        private long written;
+
+        RangeWriter(SeedProperties properties, long[] teamSizes, TeamRange range) {
+            this.properties = properties;
+            this.teamSizes = teamSizes;
+            this.range = range;
+            this.random = new Random(properties.getRandomSeed() + range.fromTeam());
+            this.nextTeam = range.fromTeam();
+            this.nextMember = range.firstMember();
+        }
+
+        long write() {
+            try (EntityWriteEvents.Suspension ignored = entityWriteEvents.suspendWrites()) {
+                while (hasNext()) {
+                    transactionTemplate.executeWithoutResult(status -> writeChunk());
+                }
+            }
+            return written;
+        }
+
+        private boolean hasNext() {
+            return remainingInTeam > 0 || nextTeam < range.toTeam();
+        }
+
+        // 커밋 한 번 분량. 청크를 넘어서는 team id 만 들고 있는다.
+        private void writeChunk() {
+            int batchSize = properties.getBatchSize();
+            long limit = (long) batchSize * properties.getFlushesPerCommit();
+            for (long pending = 1; pending <= limit && hasNext(); pending++) {
+                if (remainingInTeam == 0) {
+                    Team team = new Team("team" + nextTeam);
+                    remainingInTeam = teamSizes[nextTeam++];
+                    em.persist(team);
+                    currentTeamId = team.getId();
+                } else {
+                    Team team = em.getReference(Team.class, currentTeamId);
+                    em.persist(Member.ofTeamReference("member" + nextMember++, age(), team));
+                    remainingInTeam--;
+                    written++;
+                }
+                if (pending % batchSize == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+        }
+
+        private int age() {
+            SeedProperties.Age age = properties.getAge();
+            int value = switch (age.getDistribution()) {
+                case UNIFORM -> age.getMin() + random.nextInt(age.getMax() - age.getMin() + 1);
+                case NORMAL -> (int) Math.round(age.getMean() + random.nextGaussian() * age.getStdDev());
+            };
+            return Math.max(age.getMin(), Math.min(age.getMax(), value));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package study.querydsl.utils.seed;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 샘플 데이터 생성 설정. (seed.*)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "seed")
+public class SeedProperties {
+
+    private long members = 100;
+    private int teams = 2;
+
+    /** flush/clear 단위. hibernate.jdbc.batch_size 와 맞추면 JDBC 배치가 꽉 차서 나간다. */
+    private int batchSize = 500;
+    /** 몇 번 flush 할 때마다 커밋할지. 트랜잭션이 너무 길어지지 않도록 끊어준다. */
+    private int flushesPerCommit = 20;
+    private int writerThreads = 1;
+    private long randomSeed = 42;
+
+    private final Age age = new Age();
+    private final TeamSize teamSize = new TeamSize();
+
+    @Getter
+    @Setter
+    public static class Age {
+        private Distribution distribution = Distribution.UNIFORM;
+        private int min = 0;
+        private int max = 99;
+        /** NORMAL 일 때만 사용 */
+        private double mean = 35;
+        private double stdDev = 12;
+
+        public enum Distribution { UNIFORM, NORMAL }
+    }
+
+    @Getter
+    @Setter
+    public static class TeamSize {
+        private Distribution distribution = Distribution.UNIFORM;
+        /** ZIPF 일 때 k 번째 팀의 크기가 1 / k^skew 에 비례한다. */
+        private double skew = 1.0;
+
+        public enum Distribution { UNIFORM, ZIPF }
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.utils.support;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 청크 하나를 처리한 결과. fromId ~ toId 는 이번 청크의 id 범위(양 끝 포함), maxId 는 마지막 청크가 끝나는 id.
+ */
+@Getter
+@ToString
+public class BulkProgress {
+
+    private final int chunk;
+    private final long fromId;
+    private final long toId;
+    private final long maxId;
+    private final long affectedRows;
+    private final long totalAffectedRows;
+
+    public BulkProgress(int chunk, long fromId, long toId, long maxId, long affectedRows, long totalAffectedRows) {
+        this.chunk = chunk;
+        this.fromId = fromId;
+        this.toId = toId;
+        this.maxId = maxId;
+        this.affectedRows = affectedRows;
+        this.totalAffectedRows = totalAffectedRows;
+    }
+}
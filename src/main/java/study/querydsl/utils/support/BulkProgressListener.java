@@ -0,0 +1,13 @@
+package study.querydsl.utils.support;
+
+/**
+ * 청크 단위 벌크 연산의 진행 상황을 받는다. 각 청크가 커밋된 뒤(트랜잭션에 참여했다면 실행 직후) 호출된다.
+ */
+@FunctionalInterface
+public interface BulkProgressListener {
+
+    BulkProgressListener NONE = progress -> {
+    };
+
+    void onChunk(BulkProgress progress);
+}
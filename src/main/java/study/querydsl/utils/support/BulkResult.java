@@ -0,0 +1,17 @@
+package study.querydsl.utils.support;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class BulkResult {
+
+    private final int chunks;
+    private final long affectedRows;
+
+    public BulkResult(int chunks, long affectedRows) {
+        this.chunks = chunks;
+        this.affectedRows = affectedRows;
+    }
+}
@@ -0,0 +1,193 @@
+package study.querydsl.utils.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.utils.timeout.QueryTimeouts;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * 페이징 count 쿼리를 컨텐츠 쿼리와 동시에 돌린다. (querydsl.concurrent-count.*, 기본은 꺼져 있음)
+ * <p>
+ * count 는 count 전용의 작은 커넥션 풀(크기 = threads)에서 받은 커넥션으로 read-only 세션을 열어 실행한다.
+ * 요청이 본 풀의 커넥션을 쥔 채 count 를 기다려도 count 는 본 풀을 쓰지 않으므로 풀이 말라 서로 기다리지 않는다.
+ * 읽기 전용 트랜잭션(@ReadOnlyQuery) 안에서는 커밋 안 된 변경이 없으므로 동시에 돌린다.
+ * 쓰기 트랜잭션 안이면 다른 커넥션에서는 그 변경이 안 보이므로 이미 쥔 커넥션으로 순서대로 실행한다.
+ * 스레드와 큐가 모두 차면 다른 스레드에서 돌리지 않고 join 할 때 호출한 스레드의 EntityManager 로 실행한다.
+ * count 는 제출한 스레드의 쿼리 시간 예산 안에서 실행하므로 예산이 끝나면 같이 취소된다.
+ */
+@Slf4j
+@Component
+public class ConcurrentCount {
+
+    private final SessionFactory sessionFactory;
+    private final QueryTimeouts queryTimeouts;
+    private final boolean enabled;
+    private final ThreadPoolExecutor executor;
+    private final HikariDataSource dataSource;
+
+    public ConcurrentCount(EntityManagerFactory entityManagerFactory,
+                           DataSourceProperties dataSourceProperties,
+                           QueryTimeouts queryTimeouts,
+                           @Value("${querydsl.concurrent-count.enabled:false}") boolean enabled,
+                           @Value("${querydsl.concurrent-count.threads:4}") int threads,
+                           @Value("${querydsl.concurrent-count.queue-capacity:100}") int queueCapacity,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.queryTimeouts = queryTimeouts;
+        this.enabled = enabled;
+        this.dataSource = enabled ? countDataSource(dataSourceProperties, threads) : null;
+        // 가상 스레드 모드여도 동시에 도는 count 수(= 추가로 쓰는 커넥션 수)는 threads 로 묶는다.
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("count-", 0).factory()
+                : Thread.ofPlatform().name("count-", 0).daemon(true).factory();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory,
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    private static HikariDataSource countDataSource(DataSourceProperties properties, int threads) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("count");
+        dataSource.setMaximumPoolSize(threads);
+        dataSource.setMinimumIdle(0);
+        dataSource.setReadOnly(true);
+        dataSource.setConnectionTimeout(3000);
+        return dataSource;
+    }
+
+    /**
+     * 지금 count 를 다른 커넥션에서 돌려도 되는지. 쓰기 트랜잭션 안이면 그 커넥션으로 돌리도록 false.
+     */
+    public boolean isAvailable() {
+        return enabled && (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    /**
+     * count 쿼리를 제출한다. timer 는 실제 실행 시간을 잴 래퍼다. (RepositoryMetrics#bindCount)
+     */
+    public Pending submit(JPAQuery<Long> countQuery, UnaryOperator<LongSupplier> timer) {
+        Pending pending = new Pending(countQuery, timer);
+        try {
+            executor.execute(pending.task);
+        } catch (RejectedExecutionException e) {
+            return new Pending(timer.apply(() -> {
+                Long count = countQuery.fetchOne();
+                return count == null ? 0 : count;
+            }));
+        }
+        return pending;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    /**
+     * 제출한 count. 필요 없어지면 cancel 한다. 아직 시작 전이면 실행되지 않고, 실행 중이면 JDBC 쿼리를 취소한다.
+     */
+    public final class Pending {
+
+        private final FutureTask<Long> task;
+        // 스레드에 못 넘긴 count. join 하는 스레드가 직접 실행한다.
+        private final boolean inline;
+        private EntityManager running;
+        private boolean cancelled;
+
+        private Pending(JPAQuery<Long> countQuery, UnaryOperator<LongSupplier> timer) {
+            QueryTimeouts.Budget budget = queryTimeouts.current();
+            this.task = new FutureTask<>(() -> timer.apply(() -> execute(countQuery, budget)).getAsLong());
+            this.inline = false;
+        }
+
+        private Pending(LongSupplier count) {
+            this.task = new FutureTask<>(count::getAsLong);
+            this.inline = true;
+        }
+
+        private long execute(JPAQuery<Long> countQuery, QueryTimeouts.Budget budget) {
+            try (Connection connection = dataSource.getConnection();
+                 Session session = sessionFactory.withOptions().connection(connection).openSession();
+                 QueryTimeouts.Scope ignored = queryTimeouts.attach(budget)) {
+                session.setDefaultReadOnly(true);
+                synchronized (this) {
+                    if (cancelled) {
+                        throw new CancellationException();
+                    }
+                    running = session;
+                }
+                Long count = countQuery.clone(session).fetchOne();
+                return count == null ? 0 : count;
+            } catch (SQLException e) {
+                throw new IllegalStateException("Failed to get a count connection!!", e);
+            } finally {
+                synchronized (this) {
+                    running = null;
+                }
+            }
+        }
+
+        public long join() {
+            if (inline) {
+                task.run();
+            }
+            try {
+                return task.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException("Count query failed!!", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for count query!!", e);
+            }
+        }
+
+        public void cancel() {
+            if (task.isDone()) {
+                return;
+            }
+            task.cancel(false);
+            synchronized (this) {
+                cancelled = true;
+                if (running != null) {
+                    try {
+                        running.unwrap(SessionImplementor.class).getJdbcCoordinator().cancelLastQuery();
+                    } catch (RuntimeException e) {
+                        log.debug("Failed to cancel count query", e);
+                    }
+                }
+            }
+        }
+    }
+}
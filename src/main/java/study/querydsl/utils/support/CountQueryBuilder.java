@@ -0,0 +1,170 @@
+package study.querydsl.utils.support;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.*;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
+import org.springframework.util.Assert;
+import study.querydsl.utils.timeout.QueryTimeouts;
+import study.querydsl.utils.timeout.TimedJPAQuery;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 컨텐츠 쿼리의 from/join/where 를 그대로 가져와 count 쿼리를 만든다.
+ * <ul>
+ *     <li>order by, offset/limit, fetch join 은 버린다.</li>
+ *     <li>where/group by/having 에서 참조하지 않는 to-one left join 은 row 수를 바꾸지 않으므로 버린다.</li>
+ *     <li>count 는 root 엔티티의 id 로 센다. root 를 distinct 로 뽑으면 count(distinct id) 로 센다.</li>
+ *     <li>group by (또는 distinct 프로젝션) 쿼리는 그룹마다 min(id) 하나를 뽑는 서브쿼리로 감싸서 그룹 수를 센다.</li>
+ *     <li>컨텐츠 쿼리와 같은 쿼리 시간 예산을 쓴다. (TimedJPAQuery)</li>
+ * </ul>
+ */
+class CountQueryBuilder {
+
+    private static final String OUTER_VARIABLE = "counted";
+
+    private final EntityManager entityManager;
+    private final Supplier<QueryTimeouts> timeouts;
+
+    CountQueryBuilder(EntityManager entityManager, Supplier<QueryTimeouts> timeouts) {
+        this.entityManager = entityManager;
+        this.timeouts = timeouts;
+    }
+
+    JPAQuery<Long> build(JPAQuery<?> contentQuery) {
+        QueryMetadata source = contentQuery.getMetadata();
+        Assert.notEmpty(source.getJoins(), "Count query needs a from clause!!");
+        Expression<?> from = source.getJoins().get(0).getTarget();
+        Assert.isInstanceOf(EntityPath.class, from, "Count query root must be an entity path!!");
+
+        EntityPath<?> root = (EntityPath<?>) from;
+        String idName = idName(root);
+        Path<Object> countKey = new PathBuilder<>(root.getType(), root.getMetadata()).get(idName);
+
+        List<Expression<?>> groupBy = groupKeys(source, root);
+        if (groupBy.isEmpty()) {
+            DefaultQueryMetadata metadata = filters(source, Collections.emptyList());
+            // 컬렉션 join 으로 늘어난 row 를 distinct 가 다시 합치므로 count 도 id 를 한 번씩만 센다.
+            metadata.setProjection(source.isDistinct() ? ExpressionUtils.countDistinct(countKey) : ExpressionUtils.count(countKey));
+            return new TimedJPAQuery<>(entityManager, metadata, timeouts.get());
+        }
+
+        // select count(counted) from Root counted where counted.id in (select min(root.id) ... group by ... having ...)
+        DefaultQueryMetadata groups = filters(source, groupBy);
+        groupBy.forEach(groups::addGroupBy);
+        if (source.getHaving() != null) {
+            groups.addHaving(source.getHaving());
+        }
+        groups.setProjection(ExpressionUtils.operation(Object.class, Ops.AggOps.MIN_AGG, countKey));
+
+        PathBuilder<?> outer = new PathBuilder<>(root.getType(), OUTER_VARIABLE);
+        Path<Object> outerKey = outer.get(idName);
+        DefaultQueryMetadata metadata = new DefaultQueryMetadata();
+        metadata.addJoin(JoinType.DEFAULT, outer);
+        metadata.addWhere(ExpressionUtils.predicate(Ops.IN, outerKey, new SubQueryExpressionImpl<>(Object.class, groups)));
+        metadata.setProjection(ExpressionUtils.count(outerKey));
+        copyParams(source, metadata);
+        return new TimedJPAQuery<>(entityManager, metadata, timeouts.get());
+    }
+
+    /**
+     * group by 가 없더라도 root 가 아닌 값을 distinct 로 뽑으면 그 값들이 사실상 그룹 키다.
+     */
+    private List<Expression<?>> groupKeys(QueryMetadata source, EntityPath<?> root) {
+        if (!source.getGroupBy().isEmpty()) {
+            return source.getGroupBy();
+        }
+        Expression<?> projection = source.getProjection();
+        if (!source.isDistinct() || projection == null || projection.equals(root)) {
+            return Collections.emptyList();
+        }
+        List<Expression<?>> keys = new ArrayList<>();
+        List<Expression<?>> args = projection instanceof FactoryExpression
+                ? ((FactoryExpression<?>) projection).getArgs()
+                : Collections.singletonList(projection);
+        for (Expression<?> arg : args) {
+            keys.add(unalias(arg));
+        }
+        return keys;
+    }
+
+    private DefaultQueryMetadata filters(QueryMetadata source, List<Expression<?>> groupBy) {
+        Set<Path<?>> referenced = new HashSet<>();
+        PathCollector.collect(source.getWhere(), referenced);
+        PathCollector.collect(source.getHaving(), referenced);
+        groupBy.forEach(expr -> PathCollector.collect(expr, referenced));
+
+        List<JoinExpression> joins = source.getJoins();
+        List<JoinExpression> required = new ArrayList<>();
+        for (int i = joins.size() - 1; i >= 0; i--) {
+            JoinExpression join = joins.get(i);
+            if (i == 0 || isRequired(join, referenced)) {
+                required.add(0, join);
+                PathCollector.collect(join.getTarget(), referenced);
+                PathCollector.collect(join.getCondition(), referenced);
+            }
+        }
+
+        DefaultQueryMetadata metadata = new DefaultQueryMetadata();
+        for (JoinExpression join : required) {
+            // fetch join 플래그는 복사하지 않는다. count 쿼리에서 fetch join 은 오류가 난다.
+            metadata.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                metadata.addJoinCondition(join.getCondition());
+            }
+        }
+        if (source.getWhere() != null) {
+            metadata.addWhere(source.getWhere());
+        }
+        copyParams(source, metadata);
+        return metadata;
+    }
+
+    /**
+     * inner join 은 row 를 걸러낼 수 있고, 컬렉션 join 은 row 를 늘릴 수 있어서 남긴다.
+     * 조건에서 쓰지 않는 to-one left join 만 지운다.
+     */
+    private boolean isRequired(JoinExpression join, Set<Path<?>> referenced) {
+        if (join.getType() != JoinType.LEFTJOIN) {
+            return true;
+        }
+        Expression<?> target = join.getTarget();
+        if (!(target instanceof Operation) || ((Operation<?>) target).getOperator() != Ops.ALIAS) {
+            return true;
+        }
+        Operation<?> alias = (Operation<?>) target;
+        if (alias.getArg(0) instanceof CollectionExpression) {
+            return true;
+        }
+        return referenced.contains(alias.getArg(1));
+    }
+
+    private String idName(EntityPath<?> root) {
+        return JpaEntityInformationSupport.getEntityInformation(root.getType(), entityManager)
+                .getIdAttribute()
+                .getName();
+    }
+
+    private static Expression<?> unalias(Expression<?> expr) {
+        if (expr instanceof Operation && ((Operation<?>) expr).getOperator() == Ops.ALIAS) {
+            return ((Operation<?>) expr).getArg(0);
+        }
+        return expr;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void copyParams(QueryMetadata source, QueryMetadata target) {
+        source.getParams().forEach((param, value) -> target.setParam((ParamExpression) param, value));
+    }
+}
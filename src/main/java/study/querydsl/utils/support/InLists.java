@@ -0,0 +1,36 @@
+package study.querydsl.utils.support;
+
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * in (...) 조건에 넣을 값 목록을 나눈다.
+ * 중복을 빼고, 한 번에 maxSize 개를 넘지 않게 자른다.
+ * in 목록 길이는 Hibernate 가 2의 거듭제곱으로 채운다. (hibernate.query.in_clause_parameter_padding)
+ */
+public final class InLists {
+
+    public static final int MAX_SIZE = 512;
+
+    private InLists() {
+    }
+
+    public static <T> List<List<T>> chunks(Collection<? extends T> values) {
+        return chunks(values, MAX_SIZE);
+    }
+
+    public static <T> List<List<T>> chunks(Collection<? extends T> values, int maxSize) {
+        Assert.isTrue(maxSize > 0, "In-list max size must be positive!!");
+        Assert.noNullElements(values, "In-list values must not contain null!!");
+        List<T> distinct = new ArrayList<>(new LinkedHashSet<>(values));
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += maxSize) {
+            chunks.add(distinct.subList(from, Math.min(from + maxSize, distinct.size())));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,58 @@
+package study.querydsl.utils.support;
+
+import lombok.Getter;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * keyset(seek) 페이징의 위치 정보.
+ * 마지막으로 내려준 row 의 (정렬 키, id) 를 담고, 클라이언트에는 불투명한 문자열로 인코딩해서 내려준다.
+ */
+@Getter
+public class KeysetCursor<K> {
+
+    private static final char SEPARATOR = ':';
+
+    private final K key;
+    private final Long id;
+
+    private KeysetCursor(K key, Long id) {
+        Assert.notNull(key, "Keyset key must not be null!!");
+        Assert.notNull(id, "Keyset id must not be null!!");
+        this.key = key;
+        this.id = id;
+    }
+
+    public static <K> KeysetCursor<K> of(K key, Long id) {
+        return new KeysetCursor<>(key, id);
+    }
+
+    public String encode() {
+        String raw = String.valueOf(key) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 커서가 비어 있으면 첫 페이지를 의미하므로 null 을 반환한다.
+     */
+    public static <K> KeysetCursor<K> decode(String token, Function<String, K> keyParser) {
+        if (!StringUtils.hasText(token)) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // 정렬 키(username 등)에 구분자가 들어갈 수 있으므로 마지막 구분자로 자른다.
+            int idx = raw.lastIndexOf(SEPARATOR);
+            K key = keyParser.apply(raw.substring(0, idx));
+            Long id = Long.valueOf(raw.substring(idx + 1));
+            return new KeysetCursor<>(key, id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid keyset cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.utils.support;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * keyset 페이징 결과. 다음 페이지가 있으면 nextCursor 를 after 로 넘기면 된다.
+ */
+@Getter
+public class KeysetSlice<T> {
+
+    private final List<T> content;
+    private final String nextCursor;
+    private final boolean hasNext;
+
+    public KeysetSlice(List<T> content, String nextCursor, boolean hasNext) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+}
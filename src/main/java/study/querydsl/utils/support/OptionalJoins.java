@@ -0,0 +1,122 @@
+package study.querydsl.utils.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.support.ReplaceVisitor;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 쿼리가 실제로 참조할 때만 붙는 to-one left join.
+ * <p>
+ * 쿼리는 join 없이 만들고(별칭 path 는 자유롭게 쓴다) 마지막에 apply 한다.
+ * <ol>
+ *     <li>프로젝션/where/order by 의 별칭 id (team.id) 는 FK 컬럼 (member.team.id) 으로 바꾼다.
+ *     left join 이라 team 이 없으면 둘 다 null 이므로 결과가 같다.</li>
+ *     <li>그러고도 별칭을 참조하는 곳이 있을 때만 left join 을 붙인다.</li>
+ * </ol>
+ * to-one left join 은 row 수를 바꾸지 않으므로 빼도 결과가 같다. inner join, 컬렉션 join 은 여기에 넣지 않는다.
+ * group by/having 은 바꾸지 않고 참조 여부만 본다.
+ */
+public final class OptionalJoins {
+
+    private OptionalJoins() {
+    }
+
+    /**
+     * @param association 연관 path. 예) member.team
+     * @param alias       join 별칭. 예) team
+     * @param aliasId     별칭의 id path. 예) team.id (association 아래 같은 이름의 FK path 로 바뀐다)
+     */
+    public static <E> Join leftJoin(EntityPath<E> association, EntityPath<E> alias, Path<?> aliasId) {
+        Assert.isTrue(alias.equals(aliasId.getMetadata().getParent()), "Alias id must be a property of the alias!!");
+        Path<?> foreignKey = new PathBuilder<>(association.getType(), association.getMetadata())
+                .get(aliasId.getMetadata().getName(), aliasId.getType());
+        return new Join(association, alias, aliasId, foreignKey);
+    }
+
+    /**
+     * joins 는 앞의 join 별칭을 뒤의 join 이 쓸 수 있도록 from 에 가까운 순서로 넘긴다.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> JPAQuery<T> apply(JPAQuery<T> query, Join... joins) {
+        QueryMetadata metadata = query.getMetadata();
+        Map<Path<?>, Path<?>> foreignKeys = new HashMap<>();
+        for (Join join : joins) {
+            foreignKeys.put(join.aliasId(), join.foreignKey());
+        }
+        ForeignKeyRewriter rewriter = new ForeignKeyRewriter(foreignKeys);
+
+        if (metadata.getProjection() != null) {
+            metadata.setProjection(rewriter.rewrite(metadata.getProjection()));
+        }
+        Predicate where = metadata.getWhere();
+        if (where != null) {
+            metadata.clearWhere();
+            metadata.addWhere((Predicate) rewriter.rewrite(where));
+        }
+        List<OrderSpecifier<?>> orderBy = new ArrayList<>(metadata.getOrderBy());
+        metadata.clearOrderBy();
+        for (OrderSpecifier<?> order : orderBy) {
+            metadata.addOrderBy(new OrderSpecifier(order.getOrder(), rewriter.rewrite(order.getTarget()),
+                    order.getNullHandling()));
+        }
+
+        Set<Path<?>> referenced = new HashSet<>();
+        PathCollector.collect(metadata.getProjection(), referenced);
+        PathCollector.collect(metadata.getWhere(), referenced);
+        PathCollector.collect(metadata.getHaving(), referenced);
+        metadata.getGroupBy().forEach(expr -> PathCollector.collect(expr, referenced));
+        metadata.getOrderBy().forEach(order -> PathCollector.collect(order.getTarget(), referenced));
+
+        // 뒤의 join 이 필요하면 그 join 이 딛고 있는 앞의 별칭도 필요하다.
+        boolean[] required = new boolean[joins.length];
+        for (int i = joins.length - 1; i >= 0; i--) {
+            if (referenced.contains(joins[i].alias())) {
+                required[i] = true;
+                PathCollector.collect(joins[i].association(), referenced);
+            }
+        }
+        for (int i = 0; i < joins.length; i++) {
+            if (required[i]) {
+                query.leftJoin((EntityPath) joins[i].association(), (Path) joins[i].alias());
+            }
+        }
+        return query;
+    }
+
+    public record Join(EntityPath<?> association, EntityPath<?> alias, Path<?> aliasId, Path<?> foreignKey) {
+    }
+
+    private static class ForeignKeyRewriter extends ReplaceVisitor<Void> {
+
+        private final Map<Path<?>, Path<?>> foreignKeys;
+
+        ForeignKeyRewriter(Map<Path<?>, Path<?>> foreignKeys) {
+            this.foreignKeys = foreignKeys;
+        }
+
+        @SuppressWarnings("unchecked")
+        <E> Expression<E> rewrite(Expression<E> expr) {
+            return (Expression<E>) expr.accept(this, null);
+        }
+
+        @Override
+        public Expression<?> visit(Path<?> expr, Void context) {
+            Path<?> foreignKey = foreignKeys.get(expr);
+            return foreignKey != null ? foreignKey : super.visit(expr, context);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package study.querydsl.utils.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.*;
+
+import java.util.Set;
+
+/**
+ * 식 안에서 참조하는 path 의 root(별칭) 를 모은다. 서브쿼리 안쪽도 따라 들어간다.
+ */
+class PathCollector implements Visitor<Void, Set<Path<?>>> {
+
+    private static final PathCollector INSTANCE = new PathCollector();
+
+    static void collect(Expression<?> expr, Set<Path<?>> roots) {
+        if (expr != null) {
+            expr.accept(INSTANCE, roots);
+        }
+    }
+
+    @Override
+    public Void visit(Constant<?> expr, Set<Path<?>> roots) {
+        return null;
+    }
+
+    @Override
+    public Void visit(FactoryExpression<?> expr, Set<Path<?>> roots) {
+        expr.getArgs().forEach(arg -> collect(arg, roots));
+        return null;
+    }
+
+    @Override
+    public Void visit(Operation<?> expr, Set<Path<?>> roots) {
+        expr.getArgs().forEach(arg -> collect(arg, roots));
+        return null;
+    }
+
+    @Override
+    public Void visit(ParamExpression<?> expr, Set<Path<?>> roots) {
+        return null;
+    }
+
+    @Override
+    public Void visit(Path<?> expr, Set<Path<?>> roots) {
+        roots.add(expr.getRoot());
+        return null;
+    }
+
+    @Override
+    public Void visit(SubQueryExpression<?> expr, Set<Path<?>> roots) {
+        QueryMetadata metadata = expr.getMetadata();
+        for (JoinExpression join : metadata.getJoins()) {
+            collect(join.getTarget(), roots);
+            collect(join.getCondition(), roots);
+        }
+        collect(metadata.getWhere(), roots);
+        collect(metadata.getHaving(), roots);
+        collect(metadata.getProjection(), roots);
+        metadata.getGroupBy().forEach(groupBy -> collect(groupBy, roots));
+        metadata.getOrderBy().forEach(orderBy -> collect(orderBy.getTarget(), roots));
+        return null;
+    }
+
+    @Override
+    public Void visit(TemplateExpression<?> expr, Set<Path<?>> roots) {
+        for (Object arg : expr.getArgs()) {
+            if (arg instanceof Expression) {
+                collect((Expression<?>) arg, roots);
+            }
+        }
+        return null;
+    }
+}
@@ -2,24 +2,59 @@ package study.querydsl.utils.support;
 
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.core.types.dsl.ComparablePath;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
 import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
 import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
 import org.springframework.data.jpa.repository.support.Querydsl;
 import org.springframework.data.querydsl.SimpleEntityPathResolver;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.Assert;
+import study.querydsl.utils.cache.CountCache;
+import study.querydsl.utils.cache.QueryShapeCache;
+import study.querydsl.utils.event.EntityWriteEvents;
+import study.querydsl.utils.metrics.RepositoryMetrics;
+import study.querydsl.utils.timeout.QueryTimeouts;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 
@@ -29,6 +64,17 @@ public abstract class Querydsl4RepositorySupport {
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private CountQueryBuilder countQueryBuilder;
+    private CountCache countCache;
+    private QueryShapeCache queryShapeCache;
+    private RepositoryMetrics repositoryMetrics;
+    private ConcurrentCount concurrentCount;
+    private int readOnlyFetchSize = 500;
+    private PathBuilder<?> entityPath;
+    private String idName;
+    private TransactionTemplate transactionTemplate;
+    private EntityWriteEvents entityWriteEvents;
+    private QueryTimeouts queryTimeouts;
 
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null!!");
@@ -43,8 +89,59 @@ public abstract class Querydsl4RepositorySupport {
         SimpleEntityPathResolver resolver = SimpleEntityPathResolver.INSTANCE;
         EntityPath path = resolver.createPath(entityInformation.getJavaType());
         this.entityManager = entityManager;
-        this.querydsl = new Querydsl(entityManager, new PathBuilder<>(path.getType(), path.getMetadata()));
-        this.queryFactory = new JPAQueryFactory(entityManager);
+        this.entityPath = new PathBuilder<>(path.getType(), path.getMetadata());
+        this.idName = entityInformation.getIdAttribute().getName();
+        this.querydsl = new Querydsl(entityManager, entityPath);
+        this.queryFactory = new ReadOnlyAwareQueryFactory(entityManager, () -> readOnlyFetchSize, () -> queryTimeouts);
+        this.countQueryBuilder = new CountQueryBuilder(entityManager, () -> queryTimeouts);
+    }
+
+    @Autowired
+    public void setReadOnlyFetchSize(@Value("${querydsl.read-only.fetch-size:500}") int readOnlyFetchSize) {
+        Assert.isTrue(readOnlyFetchSize > 0, "Fetch size must be greater than zero!!");
+        this.readOnlyFetchSize = readOnlyFetchSize;
+    }
+
+    @Autowired
+    public void setCountCache(CountCache countCache) {
+        Assert.notNull(countCache, "CountCache must not be null!!");
+        this.countCache = countCache;
+    }
+
+    @Autowired
+    public void setQueryShapeCache(QueryShapeCache queryShapeCache) {
+        Assert.notNull(queryShapeCache, "QueryShapeCache must not be null!!");
+        this.queryShapeCache = queryShapeCache;
+    }
+
+    @Autowired
+    public void setRepositoryMetrics(RepositoryMetrics repositoryMetrics) {
+        Assert.notNull(repositoryMetrics, "RepositoryMetrics must not be null!!");
+        this.repositoryMetrics = repositoryMetrics;
+    }
+
+    @Autowired
+    public void setConcurrentCount(ConcurrentCount concurrentCount) {
+        Assert.notNull(concurrentCount, "ConcurrentCount must not be null!!");
+        this.concurrentCount = concurrentCount;
+    }
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        Assert.notNull(transactionManager, "TransactionManager must not be null!!");
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Autowired
+    public void setEntityWriteEvents(EntityWriteEvents entityWriteEvents) {
+        Assert.notNull(entityWriteEvents, "EntityWriteEvents must not be null!!");
+        this.entityWriteEvents = entityWriteEvents;
+    }
+
+    @Autowired
+    public void setQueryTimeouts(QueryTimeouts queryTimeouts) {
+        Assert.notNull(queryTimeouts, "QueryTimeouts must not be null!!");
+        this.queryTimeouts = queryTimeouts;
     }
 
     @PostConstruct
@@ -52,6 +149,13 @@ public abstract class Querydsl4RepositorySupport {
         Assert.notNull(entityManager, "EntityManager must not be null!!");
         Assert.notNull(querydsl, "Querydsl must not be null!!");
         Assert.notNull(queryFactory, "QueryFactory must not be null!!");
+        Assert.notNull(countCache, "CountCache must not be null!!");
+        Assert.notNull(queryShapeCache, "QueryShapeCache must not be null!!");
+        Assert.notNull(repositoryMetrics, "RepositoryMetrics must not be null!!");
+        Assert.notNull(concurrentCount, "ConcurrentCount must not be null!!");
+        Assert.notNull(transactionTemplate, "TransactionTemplate must not be null!!");
+        Assert.notNull(entityWriteEvents, "EntityWriteEvents must not be null!!");
+        Assert.notNull(queryTimeouts, "QueryTimeouts must not be null!!");
     }
 
     public Querydsl getQuerydsl() {
@@ -74,10 +178,97 @@ public abstract class Querydsl4RepositorySupport {
         return getQueryFactory().selectFrom(from);
     }
 
+    /**
+     * 트랜잭션과 상관없이 쿼리를 읽기 전용으로 실행한다. (read-only 엔티티, 쿼리 전 flush 생략, fetch size)
+     * 읽기 전용 트랜잭션(@ReadOnlyQuery) 안에서 만든 쿼리에는 자동으로 붙으므로 따로 부를 필요 없다.
+     * 쓰기 트랜잭션 안에서 부르면 아직 flush 되지 않은 변경은 결과에 반영되지 않는다.
+     */
+    protected <T> JPAQuery<T> readOnly(JPAQuery<T> query) {
+        return ReadOnlyAwareQueryFactory.readOnly(query, readOnlyFetchSize);
+    }
+
+    /**
+     * Querydsl(JPQL) 로 표현할 수 없는 SQL(window 함수 등)용 native 쿼리. 쿼리 시간 예산은 Querydsl 쿼리와 같이 붙고,
+     * 읽기 전용 트랜잭션 안에서는 fetch size 도 붙는다.
+     */
+    protected Query nativeQuery(String sql) {
+        Query query = queryTimeouts.apply(entityManager.createNativeQuery(sql));
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            query.setHint(HINT_FETCH_SIZE, readOnlyFetchSize);
+        }
+        return query;
+    }
+
+    /**
+     * 조건 조합(shape) 별로 직렬화한 JPQL 을 재사용해서 조회한다. 조건 값은 Param 으로 두고 bindings 로 넘긴다.
+     */
+    protected <T> List<T> fetchShape(String name,
+                                     Function<Predicate[], JPAQuery<T>> shape,
+                                     Map<? extends ParamExpression<?>, ?> bindings,
+                                     Predicate... conditions) {
+        return repositoryMetrics.content(() -> queryShapeCache.fetch(entityManager, name, shape, bindings, conditions));
+    }
+
+    /**
+     * 컨텐츠 쿼리를 실행한다. 실행 시간은 count 쿼리와 따로 querydsl.repository.phase{phase=content} 로 남는다.
+     */
+    protected <T> List<T> fetchContent(JPQLQuery<T> contentQuery) {
+        return repositoryMetrics.content(contentQuery::fetch);
+    }
+
+    /**
+     * 컨텐츠 쿼리로부터 count 쿼리를 만든다. 조건에 쓰이지 않는 join, order by 는 빠지고 root id 로 센다.
+     */
+    protected JPAQuery<Long> countQuery(JPAQuery<?> contentQuery) {
+        return countQueryBuilder.build(contentQuery);
+    }
+
+    /**
+     * count 쿼리 결과를 캐시에서 찾는다. 키는 직렬화한 JPQL 과 바인딩 값이라서 페이지만 바뀌면 같은 키가 된다.
+     */
+    protected long cachedCount(JPAQuery<Long> countQuery) {
+        return cachedCount(countKey(countQuery), countQuery);
+    }
+
+    private long cachedCount(Object key, JPAQuery<Long> countQuery) {
+        return countCache.get(key, () -> repositoryMetrics.count(countQuery::fetchOne));
+    }
+
+    /**
+     * 컨텐츠와 count 로 Page 를 만든다. count 는 캐시에 있으면 쓰고, PageableExecutionUtils 가 필요로 할 때만 실행한다.
+     * <p>
+     * querydsl.concurrent-count.enabled 이고 쓰기 트랜잭션 밖이면 count 를 count 전용 커넥션에서 컨텐츠 쿼리와 동시에 돌린다.
+     * 컨텐츠만 보고 total 을 알 수 있는 경우(마지막 페이지 등)에는 돌리던 count 를 취소한다.
+     */
+    protected <T> Page<T> fetchPage(Pageable pageable, JPQLQuery<T> contentQuery, JPAQuery<Long> countQuery) {
+        Object key = countKey(countQuery);
+        Long cached = countCache.peek(key);
+        if (cached != null || pageable.isUnpaged() || !concurrentCount.isAvailable()) {
+            List<T> content = fetchContent(contentQuery);
+            return PageableExecutionUtils.getPage(content, pageable,
+                    () -> cached != null ? cached : cachedCount(key, countQuery));
+        }
+
+        ConcurrentCount.Pending pending = concurrentCount.submit(countQuery, repositoryMetrics::bindCount);
+        try {
+            List<T> content = fetchContent(contentQuery);
+            return PageableExecutionUtils.getPage(content, pageable, () -> countCache.get(key, pending::join));
+        } finally {
+            pending.cancel();
+        }
+    }
+
+    private Object countKey(JPAQuery<Long> countQuery) {
+        JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(entityManager), entityManager);
+        serializer.serialize(countQuery.getMetadata(), false, null);
+        return List.of(serializer.toString(), serializer.getConstants(),
+                new HashMap<>(countQuery.getMetadata().getParams()));
+    }
+
     protected <T> Page<T> applyPagination(Pageable pageable, Function<JPAQueryFactory, JPAQuery> contentQuery) {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable, jpaQuery).fetch();
-        return PageableExecutionUtils.getPage(content, pageable, jpaQuery::fetchCount);
+        JPAQuery<Long> countQuery = countQuery(jpaQuery);
+        return fetchPage(pageable, getQuerydsl().applyPagination(pageable, jpaQuery), countQuery);
     }
 
     protected <T> Page<T> applyPagination(Pageable pageable,
@@ -85,9 +276,225 @@ public abstract class Querydsl4RepositorySupport {
                                           Function<JPAQueryFactory, JPAQuery> countQuery) {
 
         JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
-        JPAQuery countResult = countQuery.apply(getQueryFactory());
-        return PageableExecutionUtils.getPage(content, pageable,
-                countResult::fetchCount);
+        JPAQuery<Long> countResult = countQuery(countQuery.apply(getQueryFactory()));
+        return fetchPage(pageable, getQuerydsl().applyPagination(pageable, jpaContentQuery), countResult);
+    }
+
+    /**
+     * 깊은 페이지용 2단계(deferred join) 페이징.
+     * <ol>
+     *     <li>filter(from/join/where) 로 id 만 정렬, offset/limit 해서 읽는다. 건너뛰는 row 는 좁은 인덱스에서만 읽힌다.</li>
+     *     <li>content(select/from/join) 에 id in (...) 을 붙여서 그 페이지의 row 만 프로젝션/join 하고, 1단계의 id 순서로 맞춘다.</li>
+     * </ol>
+     * count 는 1단계 쿼리로 만들고 fetchPage 와 같이 캐시/동시 실행을 쓴다.
+     * 정렬은 pageable 의 sort 에 id 를 마지막 키로 붙인다. sort 에 join 한 엔티티 속성을 쓰려면 filter 에 그 join 이 있어야 한다.
+     *
+     * @param idOf content 결과에서 id 를 꺼낸다.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    protected <T> Page<T> applyPagination(Pageable pageable,
+                                          Function<JPAQueryFactory, JPAQuery<?>> filter,
+                                          Function<JPAQueryFactory, JPAQuery<T>> content,
+                                          Function<T, ?> idOf) {
+        ComparablePath<Comparable> id = entityPath.getComparable(idName, Comparable.class);
+        JPAQuery<Comparable> idQuery = filter.apply(getQueryFactory()).select(id);
+        JPAQuery<Long> countQuery = countQuery(idQuery);
+        applySorting(pageable.getSort(), idQuery);
+        if (pageable.isPaged()) {
+            idQuery.offset(pageable.getOffset()).limit(pageable.getPageSize());
+        }
+
+        Page<Comparable> ids = fetchPage(pageable, idQuery, countQuery);
+        if (!ids.hasContent()) {
+            return new PageImpl<>(List.of(), pageable, ids.getTotalElements());
+        }
+        Map<Object, T> rows = new HashMap<>();
+        for (T row : fetchContent(content.apply(getQueryFactory()).where(id.in(ids.getContent())))) {
+            rows.put(idOf.apply(row), row);
+        }
+        List<T> ordered = new ArrayList<>(ids.getNumberOfElements());
+        for (Comparable rowId : ids) {
+            T row = rows.get(rowId);
+            // 두 단계 사이에 지워진 row 는 빠진다.
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return new PageImpl<>(ordered, pageable, ids.getTotalElements());
+    }
+
+    /**
+     * sort 를 적용하고 id 를 마지막 정렬 키로 붙인다. 같은 정렬 값끼리 순서가 정해지므로 페이지를 넘겨도 row 가 빠지거나 겹치지 않는다.
+     * offset 페이징은 모두 이걸로 정렬해야 한다. (한 검색 안에서 페이징 방식이 바뀌어도 순서가 같다)
+     */
+    protected <T> JPQLQuery<T> applySorting(Sort sort, JPQLQuery<T> query) {
+        getQuerydsl().applySorting(sort, query);
+        return query.orderBy(entityPath.getComparable(idName, Comparable.class).asc());
+    }
+
+    /**
+     * count 없이 Slice 를 만든다. pageSize + 1 건을 읽어서 다음 페이지가 있는지만 판단한다. (total 이 필요 없는 무한 스크롤용)
+     * <p>
+     * contentQuery 에는 offset/limit 을 걸지 않고 넘긴다. pageable 의 sort 를 적용하고, 같은 정렬 값끼리 순서가 바뀌어
+     * 페이지 사이에서 row 가 빠지거나 겹치지 않도록 id 를 마지막 정렬 키로 붙인다.
+     */
+    protected <T> Slice<T> fetchSlice(Pageable pageable, JPQLQuery<T> contentQuery) {
+        applySorting(pageable.getSort(), contentQuery);
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(fetchContent(contentQuery), pageable, false);
+        }
+        int size = pageable.getPageSize();
+        List<T> rows = fetchContent(contentQuery
+                .offset(pageable.getOffset())
+                .limit(size + 1L));
+        boolean hasNext = rows.size() > size;
+        return new SliceImpl<>(hasNext ? rows.subList(0, size) : rows, pageable, hasNext);
+    }
+
+    protected <T> Slice<T> applySlice(Pageable pageable, Function<JPAQueryFactory, JPAQuery<T>> contentQuery) {
+        return fetchSlice(pageable, contentQuery.apply(getQueryFactory()));
+    }
+
+    /**
+     * keyset(seek) 페이징. offset 대신 (sortKey, id) > (마지막 sortKey, 마지막 id) 조건으로 바로 찾아가므로
+     * 몇 번째 페이지든 비용이 같다. size + 1 건을 조회해서 다음 페이지 유무를 판단한다.
+     */
+    protected <T, K extends Comparable<? super K>> KeysetSlice<T> applyKeyset(int size,
+                                                                             ComparableExpressionBase<K> sortKey,
+                                                                             NumberPath<Long> id,
+                                                                             KeysetCursor<K> after,
+                                                                             Function<T, KeysetCursor<K>> cursorOf,
+                                                                             Function<JPAQueryFactory, JPAQuery<T>> contentQuery) {
+        Assert.isTrue(size > 0, "Keyset size must be greater than zero!!");
+
+        JPAQuery<T> query = contentQuery.apply(getQueryFactory());
+        if (after != null) {
+            query.where(seekAfter(sortKey, id, after));
+        }
+        List<T> rows = fetchContent(query
+                .orderBy(sortKey.asc(), id.asc())
+                .limit(size + 1));
+
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(content.get(content.size() - 1)).encode() : null;
+        return new KeysetSlice<>(content, nextCursor, hasNext);
+    }
+
+    /**
+     * where 에 걸리는 row 를 id 순서로 chunkSize 개씩 나눠서 update 한다.
+     * 청크마다 마지막 id 다음부터 chunkSize 개의 id 를 먼저 읽고(keyset) 그 첫 id ~ 마지막 id 범위를 고치므로,
+     * id 가 듬성듬성해도 빈 청크(빈 트랜잭션, 2차 캐시 evict)가 생기지 않는다.
+     * <p>
+     * 호출한 쪽에 트랜잭션이 없으면 청크마다 짧은 트랜잭션으로 커밋하고, 있으면 그 트랜잭션에 참여한다.
+     * 청크를 실행한 뒤에는 영속성 컨텍스트에 올라와 있던 그 범위의 엔티티를 detach 하고 2차 캐시와 count 캐시를 비우므로
+     * 따로 flush/clear 할 필요가 없다. (이후 조회는 DB 에서 새로 읽는다)
+     * 파생 테이블(member_search_view, team_stats 등)은 청크마다 같은 트랜잭션에서 그 id 범위를 고친다.
+     * (EntityWriteEvents#bulkChanging / #bulkChanged)
+     */
+    protected BulkResult bulkUpdate(Predicate where,
+                                    Consumer<JPAUpdateClause> set,
+                                    int chunkSize,
+                                    BulkProgressListener listener) {
+        return bulk(where, chunkSize, listener, range -> {
+            JPAUpdateClause update = getQueryFactory().update(entityPath).where(where, range);
+            set.accept(update);
+            return update.execute();
+        });
+    }
+
+    /**
+     * where 에 걸리는 row 를 id 순서로 chunkSize 개씩 나눠서 delete 한다. 청크 나누기와 트랜잭션, 영속성 컨텍스트 처리는 bulkUpdate 와 같다.
+     */
+    protected BulkResult bulkDelete(Predicate where, int chunkSize, BulkProgressListener listener) {
+        return bulk(where, chunkSize, listener, range -> getQueryFactory().delete(entityPath).where(where, range).execute());
+    }
+
+    private BulkResult bulk(Predicate where, int chunkSize, BulkProgressListener listener, ToLongFunction<Predicate> chunk) {
+        Assert.isTrue(chunkSize > 0, "Chunk size must be greater than zero!!");
+        Assert.notNull(listener, "BulkProgressListener must not be null!!");
+
+        NumberPath<Long> id = entityPath.getNumber(idName, Long.class);
+        // 시작할 때의 마지막 id 까지만 처리한다. (진행 중에 새로 들어온 row 는 건드리지 않는다)
+        Long maxId = getQueryFactory()
+                .select(id.max())
+                .from(entityPath)
+                .where(where)
+                .fetchOne();
+        if (maxId == null) {
+            return new BulkResult(0, 0);
+        }
+
+        int chunks = 0;
+        long total = 0;
+        Long lastId = null;
+        while (true) {
+            Long after = lastId;
+            Chunk done = transactionTemplate.execute(status -> {
+                // 벌크 쿼리 전에 아직 flush 되지 않은 변경을 반영한다. (트랜잭션에 참여한 경우)
+                if (entityManager.isJoinedToTransaction()) {
+                    entityManager.flush();
+                }
+                List<Long> ids = getQueryFactory()
+                        .select(id)
+                        .from(entityPath)
+                        .where(where, id.loe(maxId), after == null ? null : id.gt(after))
+                        .orderBy(id.asc())
+                        .limit(chunkSize)
+                        .fetch();
+                if (ids.isEmpty()) {
+                    return null;
+                }
+                long from = ids.get(0);
+                long to = ids.get(ids.size() - 1);
+                entityWriteEvents.bulkChanging(domainClass, from, to);
+                long rows = chunk.applyAsLong(id.between(from, to));
+                detachRange(from, to);
+                entityManager.getEntityManagerFactory().getCache().evict(domainClass);
+                entityWriteEvents.bulkChanged(domainClass, from, to);
+                return new Chunk(from, to, rows);
+            });
+            if (done == null) {
+                break;
+            }
+            chunks++;
+            total += done.rows();
+            lastId = done.toId();
+            listener.onChunk(new BulkProgress(chunks, done.fromId(), done.toId(), maxId, done.rows(), total));
+            if (lastId >= maxId) {
+                break;
+            }
+        }
+        return new BulkResult(chunks, total);
+    }
+
+    private record Chunk(long fromId, long toId, long rows) {
+    }
+
+    /**
+     * 벌크 연산은 영속성 컨텍스트를 거치지 않으므로, 범위 안의 엔티티가 올라와 있으면 낡은 값이 된다.
+     */
+    private void detachRange(long from, long to) {
+        if (!entityManager.isJoinedToTransaction()) {
+            return;
+        }
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            Object entity = entry.getKey();
+            if (domainClass.isInstance(entity) && entry.getValue().getId() instanceof Long entityId
+                    && entityId >= from && entityId <= to) {
+                entityManager.detach(entity);
+            }
+        }
+    }
+
+    // (key > :key) or (key = :key and id > :id) - row value 비교를 지원하지 않는 DB 에서도 인덱스를 탈 수 있는 형태
+    private <K extends Comparable<? super K>> BooleanExpression seekAfter(ComparableExpressionBase<K> sortKey,
+                                                                          NumberPath<Long> id,
+                                                                          KeysetCursor<K> after) {
+        Expression<K> lastKey = Expressions.constant(after.getKey());
+        return Expressions.booleanOperation(Ops.GT, sortKey, lastKey)
+                .or(Expressions.booleanOperation(Ops.EQ, sortKey, lastKey)
+                        .and(id.gt(after.getId())));
     }
 }
@@ -0,0 +1,44 @@
+package study.querydsl.utils.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.utils.timeout.QueryTimeouts;
+import study.querydsl.utils.timeout.TimedJPAQueryFactory;
+
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+/**
+ * 읽기 전용 트랜잭션 안에서 만드는 쿼리에 read-only 힌트를 붙이는 JPAQueryFactory.
+ * select/selectFrom/from 모두 query() 를 거치므로 여기서 한 번에 처리한다. 쿼리 시간 예산(QueryTimeouts)은 트랜잭션과 상관없이 붙는다.
+ */
+class ReadOnlyAwareQueryFactory extends TimedJPAQueryFactory {
+
+    private final IntSupplier fetchSize;
+
+    ReadOnlyAwareQueryFactory(EntityManager entityManager, IntSupplier fetchSize, Supplier<QueryTimeouts> timeouts) {
+        super(entityManager, timeouts);
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        JPAQuery<?> query = super.query();
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? readOnly(query, fetchSize.getAsInt()) : query;
+    }
+
+    /**
+     * 조회한 엔티티를 read-only 로 올리고(스냅샷 없음), 쿼리 전에 flush 하지 않고, fetch size 만큼씩 읽는다.
+     */
+    static <T> JPAQuery<T> readOnly(JPAQuery<T> query, int fetchSize) {
+        query.setHint(HINT_READ_ONLY, true);
+        query.setHint(HINT_FETCH_SIZE, fetchSize);
+        query.setFlushMode(FlushModeType.COMMIT);
+        return query;
+    }
+}
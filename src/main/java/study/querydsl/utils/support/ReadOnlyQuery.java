@@ -0,0 +1,27 @@
+package study.querydsl.utils.support;
+
+import org.springframework.core.annotation.AliasFor;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 쓰지 않는 조회 메서드에 붙인다. 읽기 전용 트랜잭션으로 실행된다.
+ * <p>
+ * Hibernate 는 읽기 전용 트랜잭션에서 세션을 FlushMode.MANUAL, 기본 read-only 로 연다. 조회한 엔티티의 스냅샷을 만들지 않고
+ * 커밋 때 dirty checking 도 하지 않는다. Querydsl4RepositorySupport 로 만든 쿼리와 QueryShapeCache 의 캐시된 쿼리에는 read-only/fetch size 힌트도 붙는다.
+ * 이미 쓰기 트랜잭션이 열려 있으면 거기에 참여하므로 아무것도 바뀌지 않는다.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Transactional(readOnly = true)
+public @interface ReadOnlyQuery {
+
+    @AliasFor(annotation = Transactional.class, attribute = "timeout")
+    int timeout() default -1;
+}
@@ -0,0 +1,35 @@
+package study.querydsl.utils.thread;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 작업마다 가상 스레드를 하나 만들되, 동시에 실행되는 작업 수는 maxConcurrency 로 묶는다.
+ * <p>
+ * 가상 스레드는 얼마든지 만들 수 있지만 DB 커넥션은 그렇지 않다. 제한이 없으면 요청이 전부 커넥션 풀 앞에 쌓였다가
+ * connection-timeout 으로 한꺼번에 실패한다. 넘치는 작업은 세마포어에서 기다리는데, 가상 스레드가 세마포어에서
+ * 기다리는 동안에는 캐리어 스레드를 잡지 않는다.
+ */
+public class BoundedVirtualThreadExecutor implements Executor {
+
+    private final ThreadFactory threadFactory;
+    private final Semaphore permits;
+
+    public BoundedVirtualThreadExecutor(String namePrefix, int maxConcurrency) {
+        this.threadFactory = Thread.ofVirtual().name(namePrefix, 0).factory();
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        threadFactory.newThread(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        }).start();
+    }
+}
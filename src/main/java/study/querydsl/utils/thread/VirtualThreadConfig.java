@@ -0,0 +1,57 @@
+package study.querydsl.utils.thread;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * spring.threads.virtual.enabled=true 이면 요청 처리와 MVC 비동기 작업(StreamingResponseBody 등)을 가상 스레드에서 돌린다.
+ * (Boot 3.2 의 같은 이름 프로퍼티와 맞춰 두었다)
+ * <p>
+ * 동시에 처리하는 요청 수는 querydsl.virtual-threads.max-concurrent-requests 로 제한한다.
+ * JDBC 드라이버/Hibernate 의 synchronized 구간에서는 가상 스레드가 캐리어에 고정(pinning)되므로,
+ * DB 를 기다리는 요청 수를 커넥션 풀 크기 근처로 묶어 두어야 캐리어가 전부 잡히지 않는다.
+ * 그래서 이 모드에서만 Hikari 풀 크기와 connection-timeout 을 querydsl.virtual-threads.* 로 바꾼다. (플랫폼 스레드 모드는 기본값 그대로)
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandler(
+            @Value("${querydsl.virtual-threads.max-concurrent-requests:${querydsl.virtual-threads.pool-size:20}}") int maxConcurrentRequests) {
+        return protocolHandler -> protocolHandler.setExecutor(
+                new BoundedVirtualThreadExecutor("http-vt-", maxConcurrentRequests));
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean
+    public static BeanPostProcessor virtualThreadConnectionPool(
+            @Value("${querydsl.virtual-threads.pool-size:20}") int poolSize,
+            @Value("${querydsl.virtual-threads.connection-timeout:3s}") Duration connectionTimeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    dataSource.setMaximumPoolSize(poolSize);
+                    dataSource.setConnectionTimeout(connectionTimeout.toMillis());
+                }
+                return bean;
+            }
+        };
+    }
+}
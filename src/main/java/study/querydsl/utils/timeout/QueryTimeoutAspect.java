@@ -0,0 +1,46 @@
+package study.querydsl.utils.timeout;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * querydsl.query-timeout.methods 에 있는 리포지토리 메서드를 그 예산으로 묶는다.
+ * 대상은 RepositoryMetricsAspect 와 같다.
+ */
+@Aspect
+@Component
+public class QueryTimeoutAspect {
+
+    private final QueryTimeouts timeouts;
+    private final QueryTimeoutProperties properties;
+
+    public QueryTimeoutAspect(QueryTimeouts timeouts, QueryTimeoutProperties properties) {
+        this.timeouts = timeouts;
+        this.properties = properties;
+    }
+
+    @Around("execution(public * *(..))"
+            + " && (@within(org.springframework.stereotype.Repository)"
+            + " || within(study.querydsl.utils.support.Querydsl4RepositorySupport+))"
+            + " && !execution(* study.querydsl.utils.support.Querydsl4RepositorySupport.*(..))")
+    public Object withinBudget(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (properties.getMethods().isEmpty()) {
+            return joinPoint.proceed();
+        }
+        String name = AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName()
+                + "." + ((MethodSignature) joinPoint.getSignature()).getMethod().getName();
+        Duration timeout = properties.getMethods().get(name);
+        if (timeout == null) {
+            return joinPoint.proceed();
+        }
+        try (QueryTimeouts.Scope ignored = timeouts.open(timeout)) {
+            return joinPoint.proceed();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package study.querydsl.utils.timeout;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * 요청 하나를 querydsl.query-timeout.endpoints(없으면 default-timeout) 예산으로 묶는다.
+ * <p>
+ * 비동기 요청(스트리밍 응답)은 응답이 끝날 때 예산을 끝낸다. 그 사이 클라이언트 연결이 끊기거나(onError)
+ * 비동기 타임아웃이 나면(onTimeout) 실행 중인 쿼리를 취소한다.
+ */
+@Component
+public class QueryTimeoutFilter extends OncePerRequestFilter {
+
+    private final QueryTimeouts timeouts;
+    private final QueryTimeoutProperties properties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public QueryTimeoutFilter(QueryTimeouts timeouts, QueryTimeoutProperties properties) {
+        this.timeouts = timeouts;
+        this.properties = properties;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryTimeouts.Budget budget = timeouts.start(timeoutOf(request.getRequestURI()));
+        if (budget == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try (QueryTimeouts.Scope ignored = timeouts.attach(budget)) {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new BudgetListener(budget));
+            } else {
+                budget.finish();
+            }
+        }
+    }
+
+    private Duration timeoutOf(String path) {
+        for (Map.Entry<String, Duration> endpoint : properties.getEndpoints().entrySet()) {
+            if (pathMatcher.match(endpoint.getKey(), path)) {
+                return endpoint.getValue();
+            }
+        }
+        return properties.getDefaultTimeout();
+    }
+
+    private record BudgetListener(QueryTimeouts.Budget budget) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            budget.finish();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            budget.cancel();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            budget.cancel();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package study.querydsl.utils.timeout;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 요청/리포지토리 메서드별 쿼리 시간 예산 설정. (querydsl.query-timeout.*)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "querydsl.query-timeout")
+public class QueryTimeoutProperties {
+
+    private boolean enabled = true;
+
+    /** endpoints 에 맞는 경로가 없는 요청의 예산. 0 이면 제한하지 않는다. */
+    private Duration defaultTimeout = Duration.ofSeconds(10);
+
+    /** 예산이 끝나고 이만큼 지나도 쿼리가 돌고 있으면 watchdog 이 취소한다. (드라이버가 타임아웃을 지키지 않는 경우) */
+    private Duration cancelGrace = Duration.ofSeconds(1);
+
+    /** 경로 패턴(Ant 스타일)별 예산. 위에서부터 처음 맞는 것을 쓴다. */
+    private Map<String, Duration> endpoints = new LinkedHashMap<>();
+
+    /** "클래스이름.메서드이름" 별 예산. 요청 예산 안에서 실행되면 둘 중 먼저 끝나는 쪽을 따른다. */
+    private Map<String, Duration> methods = new LinkedHashMap<>();
+}
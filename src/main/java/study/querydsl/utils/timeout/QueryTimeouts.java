@@ -0,0 +1,207 @@
+package study.querydsl.utils.timeout;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.Query;
+import jakarta.persistence.QueryTimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.query.spi.QueryImplementor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.hibernate.jpa.SpecHints.HINT_SPEC_QUERY_TIMEOUT;
+
+/**
+ * 요청/리포지토리 메서드 단위의 쿼리 시간 예산(deadline).
+ * <p>
+ * 예산 안에서 실행하는 쿼리에는 남은 시간을 jakarta.persistence.query.timeout 힌트로 붙인다. (JDBC Statement#setQueryTimeout)
+ * 예산이 이미 끝났거나 취소됐으면 쿼리를 보내지 않고 QueryTimeoutException 을 던진다.
+ * 드라이버가 타임아웃을 지키지 않아도 커넥션을 붙잡고 있지 않도록, 예산 + cancel-grace 가 지나면 watchdog 이 실행 중인 쿼리를 취소한다.
+ * 클라이언트 연결이 끊긴 경우처럼 더 기다릴 이유가 없으면 Budget#cancel 로 바로 취소한다.
+ */
+@Slf4j
+@Component
+public class QueryTimeouts {
+
+    // Hibernate 는 밀리초 힌트를 초 단위로 반올림해서 JDBC 에 넘긴다. 0 초는 제한 없음이 되므로 1초보다 작게 주지 않는다.
+    private static final int MIN_HINT_MILLIS = 1000;
+
+    private final QueryTimeoutProperties properties;
+    private final ThreadLocal<Budget> current = new ThreadLocal<>();
+    private final ScheduledThreadPoolExecutor watchdog;
+
+    public QueryTimeouts(QueryTimeoutProperties properties) {
+        this.properties = properties;
+        this.watchdog = new ScheduledThreadPoolExecutor(1, Thread.ofPlatform().name("query-watchdog").daemon(true).factory());
+        this.watchdog.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * 새 예산을 만든다. 현재 예산 안이면 둘 중 먼저 끝나는 쪽을 따른다.
+     * 꺼져 있거나 timeout 이 없으면(null, 0 이하) null 을 반환한다. 다 쓰면 Budget#finish 를 불러야 한다.
+     */
+    public Budget start(Duration timeout) {
+        if (!properties.isEnabled() || timeout == null || timeout.isZero() || timeout.isNegative()) {
+            return null;
+        }
+        Budget parent = current.get();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Budget budget = new Budget(parent, parent == null ? deadline : Math.min(deadline, parent.deadline));
+        budget.watchdogTask = watchdog.schedule(budget::expire,
+                budget.remainingMillis() + properties.getCancelGrace().toMillis(), TimeUnit.MILLISECONDS);
+        return budget;
+    }
+
+    /**
+     * 현재 스레드에서 budget 을 쓴다. 다른 스레드에서 만든 예산도 붙일 수 있다. (스트리밍 응답, 동시 count 쿼리)
+     * 닫으면 이전 예산으로 돌아간다. 예산 자체를 끝내지는 않는다.
+     */
+    public Scope attach(Budget budget) {
+        Scope scope = new Scope(current.get(), null);
+        current.set(budget);
+        return scope;
+    }
+
+    /**
+     * start + attach. 닫으면 예산도 끝낸다.
+     */
+    public Scope open(Duration timeout) {
+        Budget budget = start(timeout);
+        if (budget == null) {
+            return new Scope(current.get(), null);
+        }
+        Scope scope = new Scope(current.get(), budget);
+        current.set(budget);
+        return scope;
+    }
+
+    /**
+     * 현재 스레드의 예산. 없으면 null.
+     */
+    public Budget current() {
+        return current.get();
+    }
+
+    /**
+     * 현재 예산의 남은 시간을 쿼리 타임아웃 힌트로 붙이고, 취소할 수 있도록 쿼리를 실행할 세션을 기억한다.
+     * 트랜잭션 타임아웃(@ReadOnlyQuery(timeout)) 으로 더 짧은 타임아웃이 이미 붙어 있으면 그대로 둔다.
+     */
+    public Query apply(Query query) {
+        Budget budget = current.get();
+        if (budget == null) {
+            return query;
+        }
+        long remaining = budget.remainingMillis();
+        if (budget.isCancelled() || remaining <= 0) {
+            throw new QueryTimeoutException("Query time budget exhausted!!");
+        }
+        int timeout = (int) Math.min(Integer.MAX_VALUE, Math.max(remaining, MIN_HINT_MILLIS));
+        Object existing = query.getHints().get(HINT_SPEC_QUERY_TIMEOUT);
+        if (!(existing instanceof Number) || ((Number) existing).longValue() <= 0 || ((Number) existing).longValue() > timeout) {
+            query.setHint(HINT_SPEC_QUERY_TIMEOUT, timeout);
+        }
+        budget.track(query.unwrap(QueryImplementor.class).getSession().getJdbcCoordinator());
+        return query;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * 하나의 예산. 안쪽 예산에서 실행한 쿼리는 바깥 예산에도 기록되므로 바깥을 취소하면 같이 취소된다.
+     */
+    public static final class Budget {
+
+        private final Budget parent;
+        private final long deadline;
+        private final Set<JdbcCoordinator> running = ConcurrentHashMap.newKeySet();
+        private volatile boolean cancelled;
+        private volatile boolean finished;
+        private ScheduledFuture<?> watchdogTask;
+
+        private Budget(Budget parent, long deadline) {
+            this.parent = parent;
+            this.deadline = deadline;
+        }
+
+        public long remainingMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        }
+
+        public boolean isCancelled() {
+            return cancelled || (parent != null && parent.isCancelled());
+        }
+
+        /**
+         * 실행 중인 쿼리를 취소하고, 이후 이 예산으로 쿼리를 보내지 않는다.
+         */
+        public void cancel() {
+            cancelled = true;
+            if (finished) {
+                return;
+            }
+            for (JdbcCoordinator coordinator : running) {
+                try {
+                    coordinator.cancelLastQuery();
+                } catch (RuntimeException e) {
+                    log.debug("Failed to cancel query", e);
+                }
+            }
+        }
+
+        /**
+         * 예산을 다 썼다. watchdog 을 거두고 기억한 세션을 놓는다.
+         */
+        public void finish() {
+            finished = true;
+            watchdogTask.cancel(false);
+            running.clear();
+        }
+
+        private void track(JdbcCoordinator coordinator) {
+            for (Budget budget = this; budget != null; budget = budget.parent) {
+                if (!budget.finished) {
+                    budget.running.add(coordinator);
+                }
+            }
+        }
+
+        private void expire() {
+            if (!finished && !running.isEmpty()) {
+                log.warn("Query time budget exceeded, cancelling running queries");
+                cancel();
+            }
+        }
+    }
+
+    public final class Scope implements AutoCloseable {
+
+        private final Budget previous;
+        private final Budget owned;
+
+        private Scope(Budget previous, Budget owned) {
+            this.previous = previous;
+            this.owned = owned;
+        }
+
+        @Override
+        public void close() {
+            if (owned != null) {
+                owned.finish();
+            }
+            if (previous == null) {
+                current.remove();
+            } else {
+                current.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package study.querydsl.utils.timeout;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+/**
+ * 실행할 때(fetch/fetchOne/stream/...) 현재 예산의 남은 시간을 쿼리 타임아웃으로 붙이는 JPAQuery.
+ * 만들 때가 아니라 실행할 때 붙이므로 컨텐츠 쿼리 뒤에 도는 count 쿼리는 그만큼 줄어든 시간을 받는다.
+ */
+public class TimedJPAQuery<T> extends JPAQuery<T> {
+
+    private final QueryTimeouts timeouts;
+
+    public TimedJPAQuery(EntityManager em, QueryTimeouts timeouts) {
+        super(em);
+        this.timeouts = timeouts;
+    }
+
+    public TimedJPAQuery(EntityManager em, QueryMetadata metadata, QueryTimeouts timeouts) {
+        super(em, metadata);
+        this.timeouts = timeouts;
+    }
+
+    public TimedJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata, QueryTimeouts timeouts) {
+        super(em, templates, metadata);
+        this.timeouts = timeouts;
+    }
+
+    @Override
+    protected Query createQuery(QueryModifiers modifiers, boolean forCount) {
+        return timeouts.apply(super.createQuery(modifiers, forCount));
+    }
+
+    /**
+     * 다른 EntityManager 로 복제해도(ConcurrentCount) 타임아웃이 붙도록 같은 타입으로 복제한다.
+     */
+    @Override
+    public TimedJPAQuery<T> clone(EntityManager entityManager, JPQLTemplates templates) {
+        TimedJPAQuery<T> query = new TimedJPAQuery<>(entityManager, templates, getMetadata().clone(), timeouts);
+        query.clone(this);
+        return query;
+    }
+}
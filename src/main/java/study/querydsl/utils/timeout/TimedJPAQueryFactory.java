@@ -0,0 +1,28 @@
+package study.querydsl.utils.timeout;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+
+import java.util.function.Supplier;
+
+/**
+ * TimedJPAQuery 를 만드는 JPAQueryFactory. select/selectFrom/from 모두 query() 를 거친다.
+ * timeouts 는 setter 주입처럼 나중에 채워지는 경우가 있어서 쿼리를 만들 때 꺼낸다.
+ */
+public class TimedJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager entityManager;
+    private final Supplier<QueryTimeouts> timeouts;
+
+    public TimedJPAQueryFactory(EntityManager entityManager, Supplier<QueryTimeouts> timeouts) {
+        super(entityManager);
+        this.entityManager = entityManager;
+        this.timeouts = timeouts;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new TimedJPAQuery<Void>(entityManager, timeouts.get());
+    }
+}
@@ -0,0 +1,101 @@
+package study.querydsl.utils.web;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import study.querydsl.utils.event.EntityWriteEvents;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 검색 API 응답 본문 캐시. 키는 경로와 정규화한 쿼리 스트링(조건 + 페이지)이다.
+ * <p>
+ * 크기가 넘치면 가장 오래 안 쓴 항목부터 버리고(LRU), ttl 이 지난 항목은 꺼낼 때 버린다.
+ * 엔티티가 insert/update/delete 되면 전부 비우고, 비우는 동안 만들던 응답은 이미 낡았을 수 있으므로 저장하지 않는다. (CountCache 와 같다)
+ */
+@Component
+public class ResponseCache implements MeterBinder {
+
+    private final long ttlNanos;
+    private final Map<String, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private long generation;
+
+    public ResponseCache(ResponseCacheProperties properties, EntityWriteEvents entityWriteEvents) {
+        this.ttlNanos = properties.getTtl().toNanos();
+        int maxEntries = properties.getMaxEntries();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        entityWriteEvents.subscribe(type -> invalidate());
+    }
+
+    /**
+     * 캐시에 있고 ttl 이 남았으면 반환하고, 없으면 null.
+     */
+    public synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt() - System.nanoTime() <= 0) {
+            entries.remove(key);
+            entry = null;
+        }
+        if (entry != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return entry;
+    }
+
+    /**
+     * 응답을 만들기 전에 받아 두고 put 에 넘긴다. 그 사이에 비워졌으면 저장하지 않는다.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized void put(String key, long loadGeneration, byte[] body, String contentType, String etag) {
+        if (loadGeneration == generation) {
+            entries.put(key, new Entry(body, contentType, etag, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    void notModified() {
+        notModified.increment();
+    }
+
+    public synchronized void invalidate() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("querydsl.response.cache.requests", hits, LongAdder::doubleValue)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("querydsl.response.cache.requests", misses, LongAdder::doubleValue)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("querydsl.response.cache.not.modified", notModified, LongAdder::doubleValue)
+                .register(registry);
+        Gauge.builder("querydsl.response.cache.size", this, ResponseCache::size)
+                .register(registry);
+    }
+
+    public record Entry(byte[] body, String contentType, String etag, long expiresAt) {
+    }
+}
@@ -0,0 +1,129 @@
+package study.querydsl.utils.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * 검색 API(querydsl.response-cache.paths) 의 GET 응답을 ResponseCache 에 두고 ETag 를 붙인다.
+ * <ul>
+ *     <li>캐시에 있으면 컨트롤러(DB)를 거치지 않고 저장한 본문을 그대로 내려준다.</li>
+ *     <li>If-None-Match 가 ETag 와 같으면 본문 없이 304 를 내려준다. 캐시에 있으면 DB 도 직렬화도 없다.</li>
+ *     <li>캐시에 없으면 응답을 만든 뒤 본문의 md5 로 ETag 를 만들고 저장한다.
+ *     쓰기가 있어서 캐시가 비워져도 결과가 같으면 ETag 가 같으므로 304 가 나간다.</li>
+ * </ul>
+ * 클라이언트가 매번 재검증하도록 Cache-Control: no-cache 를 붙인다.
+ */
+@Component
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    private final ResponseCache responseCache;
+    private final ResponseCacheProperties properties;
+
+    public ResponseCacheFilter(ResponseCache responseCache, ResponseCacheProperties properties) {
+        this.responseCache = responseCache;
+        this.properties = properties;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled()
+                || !HttpMethod.GET.matches(request.getMethod())
+                || !properties.getPaths().contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = cacheKey(request);
+        ResponseCache.Entry cached = responseCache.get(key);
+        if (cached != null) {
+            write(request, response, cached.etag(), cached.contentType(), cached.body());
+            return;
+        }
+
+        long generation = responseCache.generation();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+
+        byte[] body = wrapper.getContentAsByteArray();
+        String etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+        if (body.length <= properties.getMaxBodyBytes()) {
+            responseCache.put(key, generation, body, wrapper.getContentType(), etag);
+        }
+        // 본문은 wrapper 에 버퍼링되어 있을 뿐 아직 응답으로 나가지 않았다.
+        wrapper.resetBuffer();
+        write(request, response, etag, wrapper.getContentType(), body);
+    }
+
+    private void write(HttpServletRequest request, HttpServletResponse response,
+                       String etag, String contentType, byte[] body) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            responseCache.notModified();
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        if (contentType != null) {
+            response.setContentType(contentType);
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * If-None-Match 는 여러 개(쉼표 구분)이거나 * 일 수 있고, 비교는 약한 비교(W/ 무시)로 한다.
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 경로 + 파라미터 이름순으로 정렬한 쿼리 스트링. 빈 값은 조건이 없는 것과 같으므로 뺀다.
+     * 예) /v3/members?teamName=teamB&page=0&ageGoe= 와 /v3/members?page=0&teamName=teamB 는 같은 키다.
+     */
+    static String cacheKey(HttpServletRequest request) {
+        Map<String, String[]> sorted = new TreeMap<>(request.getParameterMap());
+        StringJoiner key = new StringJoiner("&", request.getRequestURI() + "?", "");
+        sorted.forEach((name, values) -> {
+            for (String value : values) {
+                if (value != null && !value.isBlank()) {
+                    key.add(name + "=" + URLEncoder.encode(value.trim(), StandardCharsets.UTF_8));
+                }
+            }
+        });
+        return key.toString();
+    }
+}
@@ -0,0 +1,32 @@
+package study.querydsl.utils.web;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 검색 API 응답 캐시 설정. (querydsl.response-cache.*)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "querydsl.response-cache")
+public class ResponseCacheProperties {
+
+    private boolean enabled = true;
+
+    /** 캐시한 응답을 DB 를 다시 보지 않고 내려주는 시간. 쓰기가 있으면 그 전에 비운다. */
+    private Duration ttl = Duration.ofSeconds(30);
+
+    /** 캐시에 둘 응답 수. 넘치면 가장 오래 안 쓴 것부터 버린다. */
+    private int maxEntries = 1000;
+
+    /** 이보다 큰 응답 본문은 캐시하지 않는다. (ETag 는 붙인다) */
+    private int maxBodyBytes = 256 * 1024;
+
+    /** 캐시할 GET 경로. 정확히 일치해야 한다. */
+    private List<String> paths = new ArrayList<>(List.of("/v1/members", "/v2/members", "/v3/members"));
+}
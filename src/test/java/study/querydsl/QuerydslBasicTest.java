@@ -18,19 +18,30 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.domain.member.dto.MemberDto;
+import study.querydsl.domain.member.dto.MemberSearchCond;
+import study.querydsl.domain.member.dto.MemberTeamDto;
 import study.querydsl.domain.member.dto.QMemberDto;
 import study.querydsl.domain.member.dto.UserDto;
 import study.querydsl.domain.member.entity.Member;
 import study.querydsl.domain.member.entity.QMember;
+import study.querydsl.domain.member.repository.MemberTestRepository;
 import study.querydsl.domain.team.entity.Team;
+import study.querydsl.utils.support.BulkProgress;
+import study.querydsl.utils.support.BulkProgressListener;
+import study.querydsl.utils.support.BulkResult;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static com.querydsl.jpa.JPAExpressions.select;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static study.querydsl.domain.member.entity.QMember.member;
 import static study.querydsl.domain.team.entity.QTeam.team;
 
@@ -41,6 +52,9 @@ public class QuerydslBasicTest {
     @Autowired
     EntityManager em;
 
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
     JPAQueryFactory queryFactory;
 
     @BeforeEach
@@ -814,6 +828,101 @@ public class QuerydslBasicTest {
         }
     }
 
+    @Test
+    public void deferredJoinPagination() throws Exception {
+        //given
+        Team deferredTeam = new Team("deferredTeam");
+        em.persist(deferredTeam);
+        for (int age = 1; age <= 5; age++) {
+            em.persist(new Member("deferred" + age, age, deferredTeam));
+        }
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamName("deferredTeam");
+
+        //when
+        Page<MemberTeamDto> page = memberTestRepository.applyPaginationDeferred(cond,
+                PageRequest.of(1, 2, Sort.by("age").descending()));
+
+        //then
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.getContent()).extracting("username", "teamName")
+                .containsExactly(tuple("deferred3", "deferredTeam"), tuple("deferred2", "deferredTeam"));
+    }
+
+    @Test
+    public void bulkUpdateByChunk() throws Exception {
+        //given
+        Member young = new Member("young", 5);
+        em.persist(young);
+        long expected = queryFactory
+                .select(member.count())
+                .from(member)
+                .where(member.age.lt(28))
+                .fetchOne();
+        List<BulkProgress> progress = new ArrayList<>();
+
+        //when
+        BulkResult result = memberTestRepository.bulkUpdateUsername(28, "비회원", 1, progress::add);
+
+        //then
+        assertThat(result.getAffectedRows()).isEqualTo(expected);
+        assertThat(result.getChunks()).isEqualTo(progress.size());
+        assertThat(progress.get(progress.size() - 1).getTotalAffectedRows()).isEqualTo(expected);
+        // 영속성 컨텍스트에 있던 엔티티는 detach 되었으므로 다시 조회하면 바뀐 값이 보인다.
+        assertThat(em.contains(young)).isFalse();
+        assertThat(em.find(Member.class, young.getId()).getUsername()).isEqualTo("비회원");
+    }
+
+    @Test
+    public void bulkDeleteByChunk() throws Exception {
+        //given
+        long expected = queryFactory
+                .select(member.count())
+                .from(member)
+                .where(member.age.lt(18))
+                .fetchOne();
+
+        //when
+        BulkResult result = memberTestRepository.bulkDeleteYoungerThan(18, 2, BulkProgressListener.NONE);
+
+        long remaining = queryFactory
+                .select(member.count())
+                .from(member)
+                .where(member.age.lt(18))
+                .fetchOne();
+        //then
+        assertThat(result.getAffectedRows()).isEqualTo(expected);
+        assertThat(remaining).isZero();
+    }
+
+    @Test
+    public void bulkUpdateSparseIdsByChunk() throws Exception {
+        //given
+        // 대상 5명 사이사이에 대상이 아닌 멤버 50명씩을 끼워서 id 를 듬성듬성하게 만든다.
+        List<Long> targetIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Member target = new Member("sparse" + i, -1000);
+            em.persist(target);
+            targetIds.add(target.getId());
+            for (int j = 0; j < 50; j++) {
+                em.persist(new Member("sparseGap" + i + "_" + j, 1000));
+            }
+        }
+        List<BulkProgress> progress = new ArrayList<>();
+
+        //when
+        BulkResult result = memberTestRepository.bulkUpdateUsername(-999, "sparseUpdated", 2, progress::add);
+
+        //then
+        // id 간격과 상관없이 대상 row 수 / chunkSize 만큼만 청크를 돈다.
+        assertThat(result.getChunks()).isEqualTo(3);
+        assertThat(result.getAffectedRows()).isEqualTo(5);
+        assertThat(progress).extracting("fromId", "toId", "affectedRows").containsExactly(
+                tuple(targetIds.get(0), targetIds.get(1), 2L),
+                tuple(targetIds.get(2), targetIds.get(3), 2L),
+                tuple(targetIds.get(4), targetIds.get(4), 1L));
+    }
+
     @Test
     public void sqlFunction() throws Exception {
 
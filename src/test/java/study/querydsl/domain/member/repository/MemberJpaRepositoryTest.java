@@ -9,8 +9,12 @@ import study.querydsl.domain.member.dto.MemberSearchCond;
 import study.querydsl.domain.member.dto.MemberTeamDto;
 import study.querydsl.domain.member.entity.Member;
 import study.querydsl.domain.team.entity.Team;
+import study.querydsl.utils.cache.QueryShapeCache;
+import study.querydsl.utils.nplusone.NPlusOneDetector;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -22,6 +26,10 @@ class MemberJpaRepositoryTest {
     EntityManager em;
     @Autowired
     MemberJpaRepository memberJpaRepository;
+    @Autowired
+    QueryShapeCache queryShapeCache;
+    @Autowired
+    NPlusOneDetector nPlusOneDetector;
 
     @Test
     public void basicTest() throws Exception {
@@ -89,4 +97,162 @@ class MemberJpaRepositoryTest {
         assertThat(result).extracting("username")
                 .containsExactly("member4");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void searchStreamTest() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        //when
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamName("teamB");
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        memberJpaRepository.searchStream(cond, result::add);
+        //then
+        assertThat(result).extracting("username")
+                .containsExactly("member3", "member4");
+        // 호출한 쪽 영속성 컨텍스트의 엔티티는 그대로 관리된다.
+        assertThat(em.contains(teamA)).isTrue();
+    }
+
+    @Test
+    public void searchShapeTest() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        //when
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamName("teamB");
+        cond.setAgeGoe(35);
+
+        List<MemberTeamDto> byWhereParam = memberJpaRepository.search(cond);
+        int shapes = queryShapeCache.size();
+        List<MemberTeamDto> byBuilder = memberJpaRepository.searchByBuilder(cond);
+
+        //then
+        assertThat(byWhereParam).extracting("username").containsExactly("member4");
+        assertThat(byBuilder).isEqualTo(byWhereParam);
+        assertThat(queryShapeCache.size()).isEqualTo(shapes);
+    }
+
+    @Test
+    public void searchMemberNPlusOneTest() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 101, teamA));
+        em.persist(new Member("member2", 102, teamA));
+        em.persist(new Member("member3", 103, teamB));
+        em.persist(new Member("member4", 104, teamB));
+
+        em.flush();
+        em.clear();
+        //when
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setAgeGoe(101);
+
+        Map<String, Integer> repeated;
+        try (NPlusOneDetector.Scope scope = nPlusOneDetector.open()) {
+            List<Member> members = memberJpaRepository.searchMember(cond);
+            members.forEach(m -> m.getTeam().getName());
+            repeated = scope.repeated(2);
+        }
+
+        //then
+        // team 2개를 lazy 로딩하면서 파라미터만 다른 같은 select 가 두 번 나간다.
+        assertThat(repeated).hasSize(1).containsValue(2);
+    }
+
+    @Test
+    public void searchMemberJoinEliminationTest() throws Exception {
+        //given
+        Team teamA = new Team("joinTeamA");
+        em.persist(teamA);
+        em.persist(new Member("joinMember1", 10, teamA));
+        em.persist(new Member("joinMember2", 20));
+        em.flush();
+        em.clear();
+
+        MemberSearchCond memberOnly = new MemberSearchCond();
+        memberOnly.setUsernamePrefix("joinMember");
+        MemberSearchCond byTeam = new MemberSearchCond();
+        byTeam.setUsernamePrefix("joinMember");
+        byTeam.setTeamName("joinTeamA");
+
+        //when
+        List<Member> memberOnlyResult;
+        List<Member> byTeamResult;
+        List<String> memberOnlySql;
+        List<String> byTeamSql;
+        try (NPlusOneDetector.Scope scope = nPlusOneDetector.openCapturing()) {
+            memberOnlyResult = memberJpaRepository.searchMember(memberOnly);
+            memberOnlySql = List.copyOf(scope.executed());
+        }
+        try (NPlusOneDetector.Scope scope = nPlusOneDetector.openCapturing()) {
+            byTeamResult = memberJpaRepository.searchMember(byTeam);
+            byTeamSql = List.copyOf(scope.executed());
+        }
+
+        //then
+        // teamName 이 없으면 team 을 join 하지 않고, 있으면 join 한다. 결과는 join 여부와 상관없다.
+        assertThat(memberOnlyResult).extracting("username").containsExactlyInAnyOrder("joinMember1", "joinMember2");
+        assertThat(memberOnlySql).singleElement().satisfies(sql -> assertThat(sql).doesNotContainIgnoringCase("join"));
+        assertThat(byTeamResult).extracting("username").containsExactly("joinMember1");
+        assertThat(byTeamSql).singleElement().satisfies(sql -> assertThat(sql).containsIgnoringCase("join"));
+    }
+
+    @Test
+    public void findByIdsTest() throws Exception {
+        //given
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            Member member = new Member("bulkMember" + i, i % 100);
+            em.persist(member);
+            ids.add(member.getId());
+        }
+        em.flush();
+        em.clear();
+
+        Member managed = em.find(Member.class, ids.get(0));
+        List<Long> request = new ArrayList<>(ids);
+        request.add(-1L);
+
+        //when
+        List<Member> members;
+        int queries;
+        try (NPlusOneDetector.Scope scope = nPlusOneDetector.open()) {
+            members = memberJpaRepository.findByIds(request);
+            queries = scope.total();
+        }
+        List<Member> byUsernames = memberJpaRepository.findByUsernames(List.of("bulkMember1", "bulkMember2"));
+
+        //then
+        // 영속성 컨텍스트에 있는 1개를 빼고 599 개 -> 512 + 87, 쿼리 2번
+        assertThat(queries).isEqualTo(2);
+        assertThat(members).extracting("id").containsExactlyElementsOf(ids);
+        assertThat(members.get(0)).isSameAs(managed);
+        assertThat(byUsernames).extracting("username")
+                .containsExactlyInAnyOrder("bulkMember1", "bulkMember2");
+    }
+}
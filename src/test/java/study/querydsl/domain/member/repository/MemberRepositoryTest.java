@@ -1,21 +1,31 @@
 package study.querydsl.domain.member.repository;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.domain.member.dto.MemberSearchCond;
 import study.querydsl.domain.member.dto.MemberTeamDto;
 import study.querydsl.domain.member.entity.Member;
 import study.querydsl.domain.member.entity.QMember;
 import study.querydsl.domain.team.entity.Team;
+import study.querydsl.utils.nplusone.NPlusOneDetector;
+import study.querydsl.utils.support.KeysetCursor;
+import study.querydsl.utils.support.KeysetSlice;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 @SpringBootTest
 @Transactional
@@ -25,6 +35,12 @@ class MemberRepositoryTest {
     EntityManager em;
     @Autowired
     MemberRepository memberRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    NPlusOneDetector nPlusOneDetector;
+    @Autowired
+    MemberTestRepository memberTestRepository;
 
     @Test
     public void basicTest() throws Exception {
@@ -106,6 +122,292 @@ class MemberRepositoryTest {
                 .containsExactly("member1", "member2", "member3");
     }
 
+    @Test
+    public void searchPageComplexTest() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+        //when
+        MemberSearchCond cond = new MemberSearchCond();
+        MemberSearchCond teamCond = new MemberSearchCond();
+        teamCond.setTeamName("teamB");
+
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(cond, PageRequest.of(0, 3));
+        Page<MemberTeamDto> teamResult = memberRepository.searchPageComplex(teamCond, PageRequest.of(0, 1));
+
+        //then
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(teamResult.getTotalElements()).isEqualTo(2);
+        assertThat(teamResult.getContent()).extracting("username")
+                .containsExactly("member3");
+    }
+
+    @Test
+    public void searchPageComplexDeferredCutoverTest() throws Exception {
+        //given
+        Team team = new Team("cutoverTeam");
+        em.persist(team);
+        for (int i = 0; i < 1100; i++) {
+            em.persist(new Member("cutover" + i, i % 7, team));
+        }
+        em.flush();
+        em.clear();
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamName("cutoverTeam");
+        Sort sort = Sort.by("age").descending();
+
+        //when
+        // 한 번에 읽은 순서와, DEFERRED_JOIN_MIN_OFFSET 앞뒤 페이지를 이어 붙인 순서가 같아야 한다.
+        List<Long> all = memberRepository.searchPageComplex(cond, PageRequest.of(0, 1100, sort)).getContent()
+                .stream().map(MemberTeamDto::getMemberId).toList();
+        List<Long> pages = new ArrayList<>();
+        for (int page = 47; page <= 52; page++) {
+            memberRepository.searchPageComplex(cond, PageRequest.of(page, 20, sort)).getContent()
+                    .forEach(dto -> pages.add(dto.getMemberId()));
+        }
+
+        //then
+        assertThat(MemberRepositoryImpl.DEFERRED_JOIN_MIN_OFFSET).isBetween(47 * 20L, 52 * 20L);
+        assertThat(pages).hasSize(120)
+                .doesNotHaveDuplicates()
+                .containsExactlyElementsOf(all.subList(47 * 20, 53 * 20));
+    }
+
+    @Test
+    public void searchSliceTest() throws Exception {
+        //given
+        Team team = new Team("sliceTeam");
+        em.persist(team);
+
+        em.persist(new Member("member1", 10, team));
+        em.persist(new Member("member2", 20, team));
+        em.persist(new Member("member3", 30, team));
+        em.persist(new Member("member4", 40, team));
+        em.flush();
+        //when
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamName("sliceTeam");
+
+        Slice<MemberTeamDto> first;
+        Slice<MemberTeamDto> second;
+        List<String> executed;
+        try (NPlusOneDetector.Scope scope = nPlusOneDetector.openCapturing()) {
+            first = memberRepository.searchSlice(cond, PageRequest.of(0, 3, Sort.by("age").descending()));
+            second = memberRepository.searchSlice(cond, PageRequest.of(1, 3, Sort.by("age").descending()));
+            executed = scope.executed();
+        }
+
+        //then
+        assertThat(first.hasNext()).isTrue();
+        assertThat(first.getContent()).extracting("username")
+                .containsExactly("member4", "member3", "member2");
+        assertThat(second.hasNext()).isFalse();
+        assertThat(second.getContent()).extracting("username")
+                .containsExactly("member1");
+        assertThat(executed).noneMatch(sql -> sql.toLowerCase().contains("count("));
+    }
+
+    @Test
+    public void searchKeysetTest() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+        //when
+        MemberSearchCond cond = new MemberSearchCond();
+
+        KeysetSlice<MemberTeamDto> first = memberRepository.searchKeyset(cond, null, 3);
+        KeysetSlice<MemberTeamDto> second = memberRepository.searchKeyset(cond,
+                KeysetCursor.decode(first.getNextCursor(), Integer::valueOf), 3);
+
+        //then
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(first.getContent()).extracting("username")
+                .containsExactly("member1", "member2", "member3");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+        assertThat(second.getContent()).extracting("username")
+                .containsExactly("member4");
+    }
+
+    @Test
+    public void searchTeamNameFromCacheTest() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamB));
+        em.persist(new Member("member3", 30));
+        //when
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamName("teamB");
+        List<MemberTeamDto> teamResult = memberRepository.search(cond);
+
+        List<MemberTeamDto> all = memberRepository.search(new MemberSearchCond());
+
+        MemberSearchCond noTeam = new MemberSearchCond();
+        noTeam.setTeamName("teamC");
+        List<MemberTeamDto> noTeamResult = memberRepository.search(noTeam);
+
+        //then
+        assertThat(teamResult).extracting("username", "teamId", "teamName")
+                .containsExactly(tuple("member2", teamB.getId(), "teamB"));
+        assertThat(all).extracting("teamName")
+                .containsExactlyInAnyOrder("teamA", "teamB", null);
+        assertThat(noTeamResult).isEmpty();
+    }
+
+    @Test
+    public void searchUsernamePrefixAndContainsTest() throws Exception {
+        //given
+        Team team = new Team("gramTeam");
+        em.persist(team);
+
+        em.persist(new Member("Kimchi", 10, team));
+        em.persist(new Member("kim", 20, team));
+        em.persist(new Member("akimbo", 30, team));
+        em.persist(new Member("lee", 40, team));
+        em.flush();
+
+        //when
+        MemberSearchCond prefix = new MemberSearchCond();
+        prefix.setTeamName("gramTeam");
+        prefix.setUsernamePrefix("ki");
+
+        MemberSearchCond contains = new MemberSearchCond();
+        contains.setTeamName("gramTeam");
+        contains.setUsernameContains("KIM");
+
+        MemberSearchCond shortContains = new MemberSearchCond();
+        shortContains.setTeamName("gramTeam");
+        shortContains.setUsernameContains("e");
+
+        List<MemberTeamDto> prefixResult = memberRepository.search(prefix);
+        List<MemberTeamDto> containsResult = memberRepository.search(contains);
+        List<MemberTeamDto> shortResult = memberRepository.search(shortContains);
+        List<MemberTeamDto> ranked = memberRepository.searchRanked(contains, 10);
+
+        //then
+        assertThat(prefixResult).extracting("username").containsExactly("kim");
+        assertThat(containsResult).extracting("username")
+                .containsExactlyInAnyOrder("Kimchi", "kim", "akimbo");
+        assertThat(shortResult).extracting("username").containsExactly("lee");
+        assertThat(ranked).extracting("username").containsExactly("kim", "Kimchi", "akimbo");
+    }
+
+    @Test
+    public void searchUsernameContainsLikeSpecialCharactersTest() throws Exception {
+        //given
+        Team team = new Team("gramEscapeTeam");
+        em.persist(team);
+        Member exact = new Member("a_b%c!d", 10, team);
+        em.persist(exact);
+        // 검색어의 gram 은 모두 있지만 _ 와 % 를 와일드카드로 읽을 때만 맞는 username
+        em.persist(new Member("_b%cz%c!", 20, team));
+        em.flush();
+
+        //when
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamName("gramEscapeTeam");
+        cond.setUsernameContains("_b%c!");
+
+        List<MemberTeamDto> byShape = memberRepository.search(cond);
+        Page<MemberTeamDto> byPage = memberRepository.searchPageSimple(cond, PageRequest.of(0, 10));
+
+        //then
+        assertThat(byShape).extracting("memberId").containsExactly(exact.getId());
+        assertThat(byPage.getContent()).extracting("memberId").containsExactly(exact.getId());
+    }
+
+    @Test
+    public void searchUsernameContainsAfterBulkUpdateTest() throws Exception {
+        //given
+        Team team = new Team("gramBulkTeam");
+        em.persist(team);
+        Member member = new Member("oldname", 1, team);
+        em.persist(member);
+        em.flush();
+        member.changeAge(2);
+        em.flush();
+
+        //when
+        memberTestRepository.bulkUpdateUsername(3, "newname", 1000, progress -> {
+        });
+
+        MemberSearchCond oldCond = new MemberSearchCond();
+        oldCond.setTeamName("gramBulkTeam");
+        oldCond.setUsernameContains("ldna");
+        MemberSearchCond newCond = new MemberSearchCond();
+        newCond.setTeamName("gramBulkTeam");
+        newCond.setUsernameContains("ewna");
+
+        //then
+        assertThat(memberRepository.search(oldCond)).isEmpty();
+        assertThat(memberRepository.search(newCond)).extracting("memberId").containsExactly(member.getId());
+    }
+
+    @Test
+    public void searchMetricsTest() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        //when
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamName("teamA");
+        cond.setAgeGoe(15);
+        memberRepository.searchPageSimple(cond, PageRequest.of(0, 10));
+
+        //then
+        Timer calls = meterRegistry.find("querydsl.repository.calls")
+                .tags("class", "MemberRepositoryImpl", "method", "searchPageSimple",
+                        "shape", "teamName+ageGoe", "outcome", "success")
+                .timer();
+        DistributionSummary rows = meterRegistry.find("querydsl.repository.rows")
+                .tags("method", "searchPageSimple", "shape", "teamName+ageGoe")
+                .summary();
+        Timer content = meterRegistry.find("querydsl.repository.phase")
+                .tags("method", "searchPageSimple", "shape", "teamName+ageGoe", "phase", "content")
+                .timer();
+
+        assertThat(calls).isNotNull();
+        assertThat(calls.count()).isGreaterThanOrEqualTo(1);
+        assertThat(rows.max()).isEqualTo(1);
+        assertThat(content.count()).isGreaterThanOrEqualTo(1);
+    }
+
     @Test
     public void querydslPredicateExecutorTest() throws Exception {
         //given
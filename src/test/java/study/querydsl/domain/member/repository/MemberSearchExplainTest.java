@@ -0,0 +1,115 @@
+package study.querydsl.domain.member.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.member.dto.MemberSearchCond;
+import study.querydsl.domain.member.entity.Member;
+import study.querydsl.domain.team.entity.Team;
+import study.querydsl.utils.nplusone.NPlusOneDetector;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * search(MemberSearchCond) 의 16가지 조건 조합마다 실제로 나가는 SQL 을 H2 EXPLAIN 으로 확인한다.
+ * 조건이 하나라도 있으면 member 테이블을 full scan 하면 안 된다. (조건이 없으면 전체 조회라 scan 이 맞다)
+ */
+@SpringBootTest
+@Transactional
+class MemberSearchExplainTest {
+
+    private static final String MEMBER_TABLE_SCAN = "PUBLIC.MEMBER.tableScan";
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    NPlusOneDetector nPlusOneDetector;
+
+    @BeforeEach
+    public void before() {
+        for (int t = 0; t < 10; t++) {
+            Team team = new Team("explainTeam" + t);
+            em.persist(team);
+            for (int m = 0; m < 100; m++) {
+                em.persist(new Member("explainMember" + t + "_" + m, m % 90, team));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("shapes")
+    public void searchUsesIndex(MemberSearchCond cond) throws Exception {
+        //given
+        List<String> executed;
+        try (NPlusOneDetector.Scope scope = nPlusOneDetector.openCapturing()) {
+            memberRepository.search(cond);
+            executed = scope.executed();
+        }
+        List<String> memberQueries = executed.stream()
+                .filter(sql -> sql.toLowerCase().contains(" member "))
+                .toList();
+
+        //when
+        List<String> plans = memberQueries.stream()
+                .map(this::explain)
+                .toList();
+
+        //then
+        assertThat(memberQueries).isNotEmpty();
+        if (!"none".equals(cond.queryShape())) {
+            assertThat(plans).allSatisfy(plan -> assertThat(plan).doesNotContain(MEMBER_TABLE_SCAN));
+        }
+    }
+
+    static Stream<MemberSearchCond> shapes() {
+        return IntStream.range(0, 16).mapToObj(mask -> {
+            MemberSearchCond cond = new MemberSearchCond();
+            if ((mask & 1) != 0) {
+                cond.setUsername("explainMember3_30");
+            }
+            if ((mask & 2) != 0) {
+                cond.setTeamName("explainTeam3");
+            }
+            if ((mask & 4) != 0) {
+                cond.setAgeGoe(20);
+            }
+            if ((mask & 8) != 0) {
+                cond.setAgeLoe(40);
+            }
+            return cond;
+        });
+    }
+
+    /**
+     * 파라미터 값은 실행 계획에 영향이 없으므로 모두 '1' 로 바인딩한다. (H2 가 컬럼 타입으로 변환한다)
+     */
+    private String explain(String sql) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+                int params = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= params; i++) {
+                    statement.setString(i, "1");
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    return rs.getString(1);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,147 @@
+package study.querydsl.domain.member.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.member.dto.MemberSearchCond;
+import study.querydsl.domain.member.dto.MemberTeamDto;
+import study.querydsl.domain.member.entity.Member;
+import study.querydsl.domain.member.view.MemberSearchViewRebuilder;
+import study.querydsl.domain.team.entity.Team;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@Transactional
+class MemberSearchViewRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberSearchViewRepository memberSearchViewRepository;
+    @Autowired
+    MemberSearchViewRebuilder memberSearchViewRebuilder;
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Test
+    public void viewFollowsEntityWritesTest() throws Exception {
+        //given
+        Team teamA = new Team("viewTeamA");
+        Team teamB = new Team("viewTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.flush();
+
+        //when
+        teamA.changeName("viewTeamC");
+        em.remove(member2);
+        em.flush();
+
+        MemberSearchCond byNewName = new MemberSearchCond();
+        byNewName.setTeamName("viewTeamC");
+        List<MemberTeamDto> renamed = memberSearchViewRepository.search(byNewName);
+
+        MemberSearchCond byRemoved = new MemberSearchCond();
+        byRemoved.setTeamName("viewTeamB");
+        List<MemberTeamDto> removed = memberSearchViewRepository.search(byRemoved);
+
+        //then
+        assertThat(renamed).extracting("memberId", "username", "teamId", "teamName")
+                .containsExactly(tuple(member1.getId(), "member1", teamA.getId(), "viewTeamC"));
+        assertThat(removed).isEmpty();
+    }
+
+    @Test
+    public void rebuildTest() throws Exception {
+        //given
+        Team team = new Team("viewTeamD");
+        em.persist(team);
+        em.persist(new Member("member1", 10, team));
+        em.persist(new Member("member2", 20, team));
+        em.flush();
+
+        //when
+        memberSearchViewRebuilder.rebuild();
+
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamName("viewTeamD");
+        cond.setAgeGoe(15);
+        List<MemberTeamDto> result = memberSearchViewRepository.search(cond);
+
+        //then
+        assertThat(result).extracting("username").containsExactly("member2");
+    }
+
+    @Test
+    public void viewFollowsBulkWritesTest() throws Exception {
+        //given
+        Team team = new Team("viewTeamBulk");
+        em.persist(team);
+        Member old = new Member("bulkOld", 90, team);
+        Member young = new Member("bulkYoung", 1, team);
+        em.persist(old);
+        em.persist(young);
+        em.flush();
+
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamName("viewTeamBulk");
+
+        //when
+        memberTestRepository.bulkUpdateUsername(2, "bulkRenamed", 1000, progress -> {
+        });
+        List<MemberTeamDto> renamed = memberSearchViewRepository.search(cond);
+        memberTestRepository.bulkDeleteYoungerThan(2, 1000, progress -> {
+        });
+        List<MemberTeamDto> deleted = memberSearchViewRepository.search(cond);
+
+        //then
+        assertThat(renamed).extracting("memberId", "username")
+                .containsExactlyInAnyOrder(tuple(old.getId(), "bulkOld"), tuple(young.getId(), "bulkRenamed"));
+        assertThat(deleted).extracting("memberId").containsExactly(old.getId());
+    }
+
+    @Test
+    public void searchPageSortTest() throws Exception {
+        //given
+        Team team = new Team("viewSortTeam");
+        em.persist(team);
+        Member member1 = new Member("member1", 30, team);
+        Member member2 = new Member("member2", 10, team);
+        Member member3 = new Member("member3", 30, team);
+        Member member4 = new Member("member4", 20, team);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+        em.flush();
+
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamName("viewSortTeam");
+
+        //when
+        Page<MemberTeamDto> first = memberSearchViewRepository.searchPage(cond,
+                PageRequest.of(0, 2, Sort.by("age").descending()));
+        Page<MemberTeamDto> second = memberSearchViewRepository.searchPage(cond,
+                PageRequest.of(1, 2, Sort.by("age").descending()));
+
+        //then
+        // 나이가 같은 member1, member3 은 id 순으로 정해진다.
+        assertThat(first.getContent()).extracting("memberId").containsExactly(member1.getId(), member3.getId());
+        assertThat(second.getContent()).extracting("memberId").containsExactly(member4.getId(), member2.getId());
+        assertThat(first.getTotalElements()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,114 @@
+package study.querydsl.domain.team.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.team.entity.Team;
+import study.querydsl.utils.event.EntityWriteEvents;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TeamCacheTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TeamCache teamCache;
+    @Autowired
+    EntityWriteEvents entityWriteEvents;
+
+    @Test
+    public void hitTest() throws Exception {
+        //given
+        Team team = new Team("teamCacheHit");
+        em.persist(team);
+        em.flush();
+        assertThat(teamCache.idsOf("teamCacheHit")).containsExactly(team.getId());
+
+        //when
+        // 이벤트 없이 DB 만 바꾸면 캐시는 모른다.
+        renameNative(team.getId(), "teamCacheHitRenamed");
+
+        //then
+        // 스냅샷에서 바로 답하므로 DB 를 다시 읽지 않는다.
+        assertThat(teamCache.idsOf("teamCacheHit")).containsExactly(team.getId());
+        assertThat(teamCache.nameOf(team.getId())).isEqualTo("teamCacheHit");
+    }
+
+    @Test
+    public void pointLookupMissTest() throws Exception {
+        //given
+        Team team = new Team("teamCacheLoaded");
+        em.persist(team);
+        em.flush();
+        assertThat(teamCache.idsOf("teamCacheLoaded")).containsExactly(team.getId());
+
+        //when
+        // 스냅샷을 읽은 뒤에 이벤트 없이 들어온 team
+        insertNative(-9001L, "teamCacheLookup");
+
+        //then
+        // 스냅샷에 없으면 그 이름/id 만 DB 에서 찾는다.
+        assertThat(teamCache.idsOf("teamCacheLookup")).containsExactly(-9001L);
+        assertThat(teamCache.nameOf(-9001L)).isEqualTo("teamCacheLookup");
+    }
+
+    @Test
+    public void memoizedMissesTest() throws Exception {
+        //given
+        // 없는 이름/id 를 최대 2개까지만 기억하는 캐시
+        TeamCache cache = new TeamCache(em, entityWriteEvents, Duration.ofMinutes(5), 2);
+        assertThat(cache.idsOf("teamCacheMiss1")).isEmpty();
+        assertThat(cache.idsOf("teamCacheMiss2")).isEmpty();
+        assertThat(cache.idsOf("teamCacheMiss3")).isEmpty();
+        assertThat(cache.nameOf(-9002L)).isNull();
+
+        //when
+        insertNative(-9002L, "teamCacheMiss1");
+        insertNative(-9003L, "teamCacheMiss3");
+
+        //then
+        // 기억한 것은 스냅샷이 바뀔 때까지 다시 찾지 않고, 한도를 넘은 것은 매번 찾는다.
+        assertThat(cache.idsOf("teamCacheMiss1")).isEmpty();
+        assertThat(cache.nameOf(-9002L)).isNull();
+        assertThat(cache.idsOf("teamCacheMiss3")).containsExactly(-9003L);
+    }
+
+    @Test
+    public void invalidateOnTeamWriteTest() throws Exception {
+        //given
+        Team team = new Team("teamCacheWrite");
+        em.persist(team);
+        em.flush();
+        assertThat(teamCache.idsOf("teamCacheWrite")).containsExactly(team.getId());
+
+        //when
+        team.changeName("teamCacheWritten");
+        em.flush();
+
+        //then
+        assertThat(teamCache.idsOf("teamCacheWrite")).isEmpty();
+        assertThat(teamCache.idsOf("teamCacheWritten")).containsExactly(team.getId());
+        assertThat(teamCache.nameOf(team.getId())).isEqualTo("teamCacheWritten");
+    }
+
+    private void insertNative(Long id, String name) {
+        em.createNativeQuery("insert into team (team_id, name) values (?, ?)")
+                .setParameter(1, id)
+                .setParameter(2, name)
+                .executeUpdate();
+    }
+
+    private void renameNative(Long id, String name) {
+        em.createNativeQuery("update team set name = ? where team_id = ?")
+                .setParameter(1, name)
+                .setParameter(2, id)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,111 @@
+package study.querydsl.domain.team.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.member.entity.Member;
+import study.querydsl.domain.team.dto.TeamMembersDto;
+import study.querydsl.domain.team.dto.TeamSearchCond;
+import study.querydsl.domain.team.entity.Team;
+import study.querydsl.utils.nplusone.NPlusOneDetector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@Transactional
+class TeamRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    NPlusOneDetector nPlusOneDetector;
+    @Autowired
+    TeamRepositoryImpl teamRepositoryImpl;
+
+    @Test
+    public void searchWithMembersTest() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+
+        em.flush();
+        em.clear();
+        //when
+        TeamSearchCond cond = new TeamSearchCond();
+        cond.setTeamName("teamA");
+
+        Page<TeamMembersDto> result;
+        int statements;
+        try (NPlusOneDetector.Scope scope = nPlusOneDetector.open()) {
+            result = teamRepository.searchWithMembers(cond, PageRequest.of(0, 10));
+            statements = scope.total();
+        }
+
+        //then
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamA");
+        assertThat(result.getContent().get(0).getMembers()).extracting("username")
+                .containsExactly("member1", "member2");
+        // team 페이지 1번 + member 1번. (마지막 페이지라 count 는 나가지 않는다)
+        assertThat(statements).isEqualTo(2);
+    }
+
+    @Test
+    public void searchWithMembersSortedAndCappedTest() throws Exception {
+        //given
+        // id 순서와 이름 역순이 반대가 되도록 만든다. ("zz" 로 시작해서 이름 역순이면 다른 team 보다 앞에 온다)
+        Team team1 = new Team("zzSortTeam1");
+        Team team2 = new Team("zzSortTeam2");
+        Team team3 = new Team("zzSortTeam3");
+        em.persist(team1);
+        em.persist(team2);
+        em.persist(team3);
+        em.persist(new Member("sortMember1", 10, team1));
+        em.persist(new Member("sortMember2", 20, team1));
+        em.persist(new Member("sortMember3", 30, team2));
+        em.persist(new Member("sortMember4", 40, team3));
+        em.persist(new Member("sortMember5", 50, team3));
+        em.persist(new Member("sortMember6", 60, team3));
+        em.flush();
+        em.clear();
+
+        // member 는 team 2개씩 묶어 읽고(3 team 이면 2번), team 마다 2명까지만 담는다.
+        teamRepositoryImpl.setMemberBatchSize(2);
+        teamRepositoryImpl.setMaxMembersPerTeam(2);
+        try {
+            //when
+            Page<TeamMembersDto> result = teamRepository.searchWithMembers(new TeamSearchCond(),
+                    PageRequest.of(0, 3, Sort.by("name").descending()));
+
+            //then
+            assertThat(result.getContent()).extracting("teamName", "memberCount").containsExactly(
+                    tuple("zzSortTeam3", 3L),
+                    tuple("zzSortTeam2", 1L),
+                    tuple("zzSortTeam1", 2L));
+            assertThat(result.getContent().get(0).getMembers()).extracting("username")
+                    .containsExactly("sortMember4", "sortMember5");
+            assertThat(result.getContent().get(1).getMembers()).extracting("username")
+                    .containsExactly("sortMember3");
+            assertThat(result.getContent().get(2).getMembers()).extracting("username")
+                    .containsExactly("sortMember1", "sortMember2");
+        } finally {
+            teamRepositoryImpl.setMemberBatchSize(100);
+            teamRepositoryImpl.setMaxMembersPerTeam(100);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package study.querydsl.domain.team.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.member.entity.Member;
+import study.querydsl.domain.member.repository.MemberTestRepository;
+import study.querydsl.domain.team.entity.Team;
+import study.querydsl.domain.team.entity.TeamStats;
+import study.querydsl.domain.team.stats.TeamStatsReconciler;
+import study.querydsl.utils.event.EntityWriteEvents;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@Transactional
+class TeamStatsRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TeamStatsRepository teamStatsRepository;
+    @Autowired
+    TeamStatsReconciler teamStatsReconciler;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MemberTestRepository memberTestRepository;
+    @Autowired
+    EntityWriteEvents entityWriteEvents;
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void incrementalStatsTest() throws Exception {
+        //given
+        // 통계는 커밋 직전에 반영되므로 트랜잭션을 커밋하면서 확인하고 끝나면 지운다.
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Team teamA = new Team("statsTeamA");
+        Team teamB = new Team("statsTeamB");
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        try {
+            boolean visibleBeforeCommit = Boolean.TRUE.equals(tx.execute(status -> {
+                em.persist(teamA);
+                em.persist(teamB);
+                em.persist(member1);
+                em.persist(member2);
+                em.persist(member3);
+                em.flush();
+                return teamStatsRepository.findById(teamA.getId()).isPresent();
+            }));
+            TeamStats initial = stats(teamA);
+
+            //when
+            tx.executeWithoutResult(status -> {
+                em.find(Member.class, member2.getId()).changeAge(40);
+                em.find(Member.class, member1.getId()).changeTeam(em.find(Team.class, teamB.getId()));
+                em.remove(em.find(Member.class, member3.getId()));
+            });
+
+            //then
+            assertThat(visibleBeforeCommit).isFalse();
+            assertThat(initial).extracting("memberCount", "ageSum", "ageMin", "ageMax", "ageAvg")
+                    .containsExactly(2L, 30L, 10, 20, 15.0);
+            assertThat(stats(teamA)).extracting("memberCount", "ageSum", "ageMin", "ageMax")
+                    .containsExactly(1L, 40L, 40, 40);
+            assertThat(stats(teamB)).extracting("memberCount", "ageSum", "ageMin", "ageMax")
+                    .containsExactly(1L, 10L, 10, 10);
+        } finally {
+            tx.executeWithoutResult(status -> {
+                for (Member member : List.of(member1, member2, member3)) {
+                    Member found = em.find(Member.class, member.getId());
+                    if (found != null) {
+                        em.remove(found);
+                    }
+                }
+                em.remove(em.find(Team.class, teamA.getId()));
+                em.remove(em.find(Team.class, teamB.getId()));
+            });
+        }
+        assertThat(teamStatsRepository.findById(teamA.getId())).isEmpty();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void rangedBulkDeleteStatsTest() throws Exception {
+        //given
+        // 다른 데이터와 겹치지 않도록 음수 나이를 쓴다.
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Team team = new Team("statsBulkTeam");
+        List<Member> members = List.of(new Member("statsBulk1", -300, team),
+                new Member("statsBulk2", -250, team), new Member("statsBulk3", -240, team));
+        try {
+            tx.executeWithoutResult(status -> {
+                em.persist(team);
+                members.forEach(em::persist);
+            });
+
+            //when
+            // 청크마다 커밋되는 벌크 delete. 지워진 member 의 team 은 실행 전에 모아 둔다.
+            memberTestRepository.bulkDeleteYoungerThan(-260, 1000, progress -> {
+            });
+
+            //then
+            assertThat(stats(team)).extracting("memberCount", "ageSum", "ageMin", "ageMax")
+                    .containsExactly(2L, -490L, -250, -240);
+        } finally {
+            cleanUp(tx, team, members);
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void concurrentRecountTest() throws Exception {
+        //given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Team team = new Team("statsRecountTeam");
+        List<Member> members = List.of(new Member("statsRecount1", 10, team), new Member("statsRecount2", 20, team));
+        CyclicBarrier beforeCommit = new CyclicBarrier(2);
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        try {
+            tx.executeWithoutResult(status -> {
+                em.persist(team);
+                members.forEach(em::persist);
+            });
+
+            //when
+            // 두 트랜잭션이 같은 team 을 다시 세도록 해 두고 동시에 커밋한다.
+            List<Thread> threads = new ArrayList<>();
+            for (Member member : members) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        tx.executeWithoutResult(status -> {
+                            em.createNativeQuery("update member set age = age + 1 where member_id = ?")
+                                    .setParameter(1, member.getId())
+                                    .executeUpdate();
+                            entityWriteEvents.bulkChanged(Member.class, member.getId(), member.getId());
+                            try {
+                                beforeCommit.await(5, TimeUnit.SECONDS);
+                            } catch (Exception e) {
+                                throw new IllegalStateException(e);
+                            }
+                        });
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            }
+
+            //then
+            // 둘 다 커밋되고 통계 row 는 하나다. (delete + insert 였을 때는 기본키 위반이 날 수 있었다)
+            assertThat(failures).isEmpty();
+            assertThat(teamStatsRepository.findAllById(List.of(team.getId()))).hasSize(1);
+            assertThat(stats(team).getMemberCount()).isEqualTo(2L);
+        } finally {
+            cleanUp(tx, team, members);
+        }
+    }
+
+    @Test
+    public void reconcileTest() throws Exception {
+        //given
+        Team team = new Team("teamA");
+        em.persist(team);
+        em.persist(new Member("member1", 10, team));
+        em.persist(new Member("member2", 20, team));
+        em.flush();
+        // 이 트랜잭션의 증감은 커밋 직전에 반영되므로 어긋난 row 를 직접 넣는다.
+        em.createNativeQuery("insert into team_stats (team_id, member_count, age_sum, age_min, age_max) values (?, 99, 30, 10, null)")
+                .setParameter(1, team.getId())
+                .executeUpdate();
+
+        //when
+        int drifted = teamStatsReconciler.reconcile();
+        em.clear();
+
+        //then
+        assertThat(drifted).isGreaterThanOrEqualTo(1);
+        assertThat(teamStatsRepository.findAllById(List.of(team.getId())))
+                .extracting("memberCount", "ageSum", "ageMin", "ageMax")
+                .containsExactly(tuple(2L, 30L, 10, 20));
+    }
+
+    private void cleanUp(TransactionTemplate tx, Team team, List<Member> members) {
+        tx.executeWithoutResult(status -> {
+            for (Member member : members) {
+                Member found = em.find(Member.class, member.getId());
+                if (found != null) {
+                    em.remove(found);
+                }
+            }
+            Team found = em.find(Team.class, team.getId());
+            if (found != null) {
+                em.remove(found);
+            }
+        });
+    }
+
+    private TeamStats stats(Team team) {
+        return teamStatsRepository.findById(team.getId()).orElseThrow();
+    }
+}
@@ -0,0 +1,116 @@
+package study.querydsl.utils.cache;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.member.entity.Member;
+import study.querydsl.domain.team.entity.Team;
+import study.querydsl.utils.event.EntityWriteEvents;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.domain.member.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class CountCacheTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityWriteEvents entityWriteEvents;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void hitAndMissTest() throws Exception {
+        //given
+        CountCache cache = new CountCache(100, entityWriteEvents);
+        AtomicInteger loads = new AtomicInteger();
+
+        //when
+        long first = cache.get("countCacheHit", () -> loads.incrementAndGet() * 10L);
+        long second = cache.get("countCacheHit", () -> loads.incrementAndGet() * 10L);
+        Long peeked = cache.peek("countCacheHit");
+        Long absent = cache.peek("countCacheMiss");
+
+        //then
+        assertThat(first).isEqualTo(10L);
+        assertThat(second).isEqualTo(10L);
+        assertThat(peeked).isEqualTo(10L);
+        assertThat(absent).isNull();
+        assertThat(loads).hasValue(1);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidateOnMemberWriteTest() throws Exception {
+        //given
+        CountCache cache = new CountCache(100, entityWriteEvents);
+        cache.get("countCacheMember", () -> 1L);
+
+        //when
+        em.persist(new Member("countCacheMember", 10));
+        em.flush();
+
+        //then
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void invalidateOnTeamWriteTest() throws Exception {
+        //given
+        CountCache cache = new CountCache(100, entityWriteEvents);
+        cache.get("countCacheTeam", () -> 1L);
+
+        //when
+        em.persist(new Team("countCacheTeam"));
+        em.flush();
+
+        //then
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void uncommittedCountNotPublishedTest() throws Exception {
+        //given
+        CountCache cache = new CountCache(100, entityWriteEvents);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        //when
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("countCacheUncommitted", 10));
+            em.flush();
+            long uncommitted = cache.get("countCacheUncommitted", this::countUncommitted);
+
+            //then
+            // 커밋 전 count 는 이 트랜잭션에서만 쓰고, 다른 스레드에는 보이지 않는다.
+            assertThat(uncommitted).isEqualTo(1L);
+            assertThat(CompletableFuture.supplyAsync(() -> cache.peek("countCacheUncommitted")).join()).isNull();
+            assertThat(cache.size()).isZero();
+            status.setRollbackOnly();
+        });
+
+        // 트랜잭션이 끝나면 다시 캐시한다.
+        long committed = cache.get("countCacheUncommitted", this::countUncommitted);
+        assertThat(committed).isZero();
+        assertThat(cache.peek("countCacheUncommitted")).isZero();
+    }
+
+    private long countUncommitted() {
+        return new JPAQuery<>(em)
+                .select(member.count())
+                .from(member)
+                .where(member.username.eq("countCacheUncommitted"))
+                .fetchOne();
+    }
+}
@@ -0,0 +1,98 @@
+package study.querydsl.utils.cache;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.impl.JPAQuery;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.member.entity.Member;
+import study.querydsl.utils.timeout.QueryTimeouts;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.domain.member.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class QueryShapeCacheTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    QueryTimeouts queryTimeouts;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void evictLeastRecentlyUsedShapeTest() throws Exception {
+        //given
+        em.persist(new Member("shapeMember1", 10));
+        em.persist(new Member("shapeMember2", 20));
+        QueryShapeCache cache = new QueryShapeCache(1, 500, queryTimeouts);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        Param<String> username = new Param<>(String.class, "username");
+        Param<Integer> age = new Param<>(Integer.class, "age");
+        Map<Param<?>, Object> bindings = Map.of(username, "shapeMember1", age, 20);
+
+        //when
+        List<Member> byUsername = cache.fetch(em, "shapes", this::shape, bindings, member.username.eq(username));
+        List<Member> byAge = cache.fetch(em, "shapes", this::shape, bindings,
+                member.username.startsWith("shapeMember"), member.age.goe(age));
+        cache.fetch(em, "shapes", this::shape, bindings, member.username.startsWith("shapeMember"), member.age.goe(age));
+
+        //then
+        // 가득 차도 새 모양을 캐시하고 오래된 모양을 버린다.
+        assertThat(byUsername).extracting("username").containsExactly("shapeMember1");
+        assertThat(byAge).extracting("username").containsExactly("shapeMember2");
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(registry.get("querydsl.query.shape.cache.evictions").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("querydsl.query.shape.cache.requests").tag("result", "hit").functionCounter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void readOnlyHintsTest() throws Exception {
+        //given
+        QueryShapeCache cache = new QueryShapeCache(10, 123, queryTimeouts);
+        Param<String> username = new Param<>(String.class, "username");
+        Map<Param<?>, Object> bindings = Map.of(username, "shapeHintMember");
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate write = new TransactionTemplate(transactionManager);
+
+        //when
+        org.hibernate.query.Query<?> inReadOnly = readOnly.execute(status ->
+                hibernateQuery(cache.createQuery(em, "hints", this::shape, bindings, member.username.eq(username))));
+        org.hibernate.query.Query<?> inWrite = write.execute(status ->
+                hibernateQuery(cache.createQuery(em, "hints", this::shape, bindings, member.username.eq(username))));
+
+        //then
+        // 캐시된 모양도 읽기 전용 트랜잭션에서는 Querydsl 경로와 같은 힌트로 실행한다.
+        assertThat(inReadOnly.isReadOnly()).isTrue();
+        assertThat(inReadOnly.getFetchSize()).isEqualTo(123);
+        assertThat(inReadOnly.getFlushMode()).isEqualTo(FlushModeType.COMMIT);
+        assertThat(inWrite.isReadOnly()).isFalse();
+        assertThat(inWrite.getFetchSize()).isNotEqualTo(123);
+    }
+
+    private org.hibernate.query.Query<?> hibernateQuery(Query query) {
+        return query.unwrap(org.hibernate.query.Query.class);
+    }
+
+    private JPAQuery<Member> shape(Predicate[] where) {
+        return new JPAQuery<Member>(em).select(member).from(member).where(where);
+    }
+}
@@ -0,0 +1,86 @@
+package study.querydsl.utils.seed;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class DataSeederTest {
+
+    @Test
+    public void teamSizesAddUpTest() throws Exception {
+        //given
+        SeedProperties uniform = properties(10_007, 13, SeedProperties.TeamSize.Distribution.UNIFORM);
+        SeedProperties zipf = properties(10_007, 13, SeedProperties.TeamSize.Distribution.ZIPF);
+
+        //when
+        long[] uniformSizes = DataSeeder.teamSizes(uniform);
+        long[] zipfSizes = DataSeeder.teamSizes(zipf);
+
+        //then
+        assertThat(uniformSizes).hasSize(13);
+        assertThat(Arrays.stream(uniformSizes).sum()).isEqualTo(10_007);
+        assertThat(zipfSizes).hasSize(13);
+        assertThat(Arrays.stream(zipfSizes).sum()).isEqualTo(10_007);
+    }
+
+    @Test
+    public void teamSizeSkewTest() throws Exception {
+        //given
+        SeedProperties uniform = properties(1_000_000, 100, SeedProperties.TeamSize.Distribution.UNIFORM);
+        SeedProperties zipf = properties(1_000_000, 100, SeedProperties.TeamSize.Distribution.ZIPF);
+        zipf.getTeamSize().setSkew(1.0);
+
+        //when
+        long[] uniformSizes = DataSeeder.teamSizes(uniform);
+        long[] zipfSizes = DataSeeder.teamSizes(zipf);
+
+        //then
+        // uniform 은 나머지 분배 때문에 최대 1 차이
+        assertThat(Arrays.stream(uniformSizes).max().getAsLong() - Arrays.stream(uniformSizes).min().getAsLong())
+                .isLessThanOrEqualTo(1);
+        // zipf(skew 1) 는 k 번째 팀이 1 / k 에 비례한다.
+        assertThat((double) zipfSizes[0] / zipfSizes[1]).isCloseTo(2.0, within(0.01));
+        assertThat((double) zipfSizes[0] / zipfSizes[9]).isCloseTo(10.0, within(0.05));
+        for (int i = 1; i < zipfSizes.length; i++) {
+            assertThat(zipfSizes[i]).isLessThanOrEqualTo(zipfSizes[i - 1]);
+        }
+    }
+
+    @Test
+    public void partitionTest() throws Exception {
+        //given
+        SeedProperties zipf = properties(100_000, 50, SeedProperties.TeamSize.Distribution.ZIPF);
+        long[] sizes = DataSeeder.teamSizes(zipf);
+
+        //when
+        List<DataSeeder.TeamRange> ranges = DataSeeder.partition(sizes, 4);
+
+        //then
+        // 팀 구간이 겹치지 않고 빈틈없이 이어지며, 멤버 번호도 앞 구간의 멤버 수만큼 밀려서 시작한다.
+        assertThat(ranges).hasSizeBetween(1, 4);
+        assertThat(ranges.get(0).fromTeam()).isZero();
+        assertThat(ranges.get(ranges.size() - 1).toTeam()).isEqualTo(sizes.length);
+        long firstMember = 0;
+        int nextTeam = 0;
+        for (DataSeeder.TeamRange range : ranges) {
+            assertThat(range.fromTeam()).isEqualTo(nextTeam);
+            assertThat(range.toTeam()).isGreaterThan(range.fromTeam());
+            assertThat(range.firstMember()).isEqualTo(firstMember);
+            firstMember += Arrays.stream(sizes, range.fromTeam(), range.toTeam()).sum();
+            nextTeam = range.toTeam();
+        }
+        assertThat(firstMember).isEqualTo(100_000);
+    }
+
+    private SeedProperties properties(long members, int teams, SeedProperties.TeamSize.Distribution distribution) {
+        SeedProperties properties = new SeedProperties();
+        properties.setMembers(members);
+        properties.setTeams(teams);
+        properties.getTeamSize().setDistribution(distribution);
+        return properties;
+    }
+}
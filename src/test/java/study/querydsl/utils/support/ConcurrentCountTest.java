@@ -0,0 +1,182 @@
+package study.querydsl.utils.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.utils.timeout.QueryTimeouts;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.domain.member.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class ConcurrentCountTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    DataSourceProperties dataSourceProperties;
+    @Autowired
+    QueryTimeouts queryTimeouts;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void availableInReadOnlyTransactionTest() throws Exception {
+        //given
+        ConcurrentCount concurrentCount = concurrentCount(1, 1);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate write = new TransactionTemplate(transactionManager);
+        try {
+            //when
+            Boolean inReadOnly = readOnly.execute(status -> concurrentCount.isAvailable());
+            Boolean inWrite = write.execute(status -> concurrentCount.isAvailable());
+
+            //then
+            // @ReadOnlyQuery 안에서도 동시에 돌리고, 쓰기 트랜잭션 안에서만 순서대로 돌린다.
+            assertThat(inReadOnly).isTrue();
+            assertThat(inWrite).isFalse();
+            assertThat(concurrentCount.isAvailable()).isTrue();
+        } finally {
+            concurrentCount.shutdown();
+        }
+    }
+
+    @Test
+    public void countOverlapsCallerTest() throws Exception {
+        //given
+        ConcurrentCount concurrentCount = concurrentCount(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicReference<String> countThread = new AtomicReference<>();
+        try {
+            //when
+            ConcurrentCount.Pending pending = concurrentCount.submit(countQuery(), count -> () -> {
+                countThread.set(Thread.currentThread().getName());
+                started.countDown();
+                return count.getAsLong();
+            });
+            // 호출한 스레드는 join 전에 컨텐츠 쿼리를 돌린다.
+            boolean overlapped = started.await(5, TimeUnit.SECONDS);
+            new JPAQuery<>(em).select(member).from(member).limit(1).fetch();
+            long total = pending.join();
+
+            //then
+            assertThat(overlapped).isTrue();
+            assertThat(countThread.get()).startsWith("count-");
+            assertThat(total).isGreaterThanOrEqualTo(0);
+        } finally {
+            concurrentCount.shutdown();
+        }
+    }
+
+    @Test
+    public void cancelUnneededCountTest() throws Exception {
+        //given
+        ConcurrentCount concurrentCount = concurrentCount(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicBoolean skipped = new AtomicBoolean();
+        try {
+            ConcurrentCount.Pending pending = concurrentCount.submit(countQuery(), count -> () -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                    return count.getAsLong();
+                } catch (CancellationException e) {
+                    skipped.set(true);
+                    throw e;
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    finished.countDown();
+                }
+            });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            //when
+            // 컨텐츠만으로 total 을 알았다고 치고 count 를 취소한다.
+            pending.cancel();
+            release.countDown();
+
+            //then
+            assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(skipped).isTrue();
+            assertThatThrownBy(pending::join).isInstanceOf(CancellationException.class);
+        } finally {
+            concurrentCount.shutdown();
+        }
+    }
+
+    @Test
+    public void rejectedCountRunsInlineTest() throws Exception {
+        //given
+        // 스레드 1개, 큐 1칸: 하나는 실행 중, 하나는 대기, 세 번째는 거절된다.
+        ConcurrentCount concurrentCount = concurrentCount(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        UnaryOperator<LongSupplier> blocking = count -> () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return count.getAsLong();
+        };
+        AtomicReference<Thread> inlineThread = new AtomicReference<>();
+        try {
+            ConcurrentCount.Pending running = concurrentCount.submit(countQuery(), blocking);
+            ConcurrentCount.Pending queued = concurrentCount.submit(countQuery(), blocking);
+
+            //when
+            ConcurrentCount.Pending rejected = concurrentCount.submit(countQuery(), count -> () -> {
+                inlineThread.set(Thread.currentThread());
+                return count.getAsLong();
+            });
+            // 거절된 count 는 join 할 때까지 실행되지 않는다.
+            Thread beforeJoin = inlineThread.get();
+            long total = rejected.join();
+
+            //then
+            assertThat(beforeJoin).isNull();
+            assertThat(inlineThread.get()).isSameAs(Thread.currentThread());
+            assertThat(total).isGreaterThanOrEqualTo(0);
+
+            release.countDown();
+            running.join();
+            queued.join();
+        } finally {
+            release.countDown();
+            concurrentCount.shutdown();
+        }
+    }
+
+    private ConcurrentCount concurrentCount(int threads, int queueCapacity) {
+        return new ConcurrentCount(entityManagerFactory, dataSourceProperties, queryTimeouts,
+                true, threads, queueCapacity, false);
+    }
+
+    private JPAQuery<Long> countQuery() {
+        return new JPAQuery<>(em).select(member.count()).from(member);
+    }
+}
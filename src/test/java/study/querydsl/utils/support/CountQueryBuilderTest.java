@@ -0,0 +1,57 @@
+package study.querydsl.utils.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.member.entity.Member;
+import study.querydsl.domain.team.entity.Team;
+import study.querydsl.utils.timeout.QueryTimeouts;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.domain.member.entity.QMember.member;
+import static study.querydsl.domain.team.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class CountQueryBuilderTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    QueryTimeouts queryTimeouts;
+
+    @Test
+    public void distinctRootCountTest() throws Exception {
+        //given
+        Team teamA = new Team("distinctCountTeamA");
+        Team teamB = new Team("distinctCountTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.flush();
+        em.clear();
+
+        JPAQuery<Team> contentQuery = new JPAQueryFactory(em)
+                .selectDistinct(team)
+                .from(team)
+                .join(team.members, member)
+                .where(team.name.startsWith("distinctCountTeam"));
+
+        //when
+        JPAQuery<Long> countQuery = new CountQueryBuilder(em, () -> queryTimeouts).build(contentQuery);
+
+        //then
+        // member join 으로 teamA 가 두 row 가 되어도 team 수만큼 센다.
+        List<Team> content = contentQuery.fetch();
+        assertThat(content).hasSize(2);
+        assertThat(countQuery.fetchOne()).isEqualTo(2L);
+    }
+}
@@ -0,0 +1,51 @@
+package study.querydsl.utils.support;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
+import org.hibernate.query.Query;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.utils.timeout.QueryTimeouts;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.domain.member.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class ReadOnlyAwareQueryFactoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    QueryTimeouts queryTimeouts;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void readOnlyHintsTest() throws Exception {
+        //given
+        ReadOnlyAwareQueryFactory queryFactory = new ReadOnlyAwareQueryFactory(em, () -> 123, () -> queryTimeouts);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate write = new TransactionTemplate(transactionManager);
+
+        //when
+        Query<?> inReadOnly = readOnly.execute(status ->
+                queryFactory.selectFrom(member).createQuery().unwrap(Query.class));
+        Query<?> inWrite = write.execute(status ->
+                queryFactory.selectFrom(member).createQuery().unwrap(Query.class));
+
+        //then
+        assertThat(inReadOnly.isReadOnly()).isTrue();
+        assertThat(inReadOnly.getFetchSize()).isEqualTo(123);
+        assertThat(inReadOnly.getFlushMode()).isEqualTo(FlushModeType.COMMIT);
+        assertThat(inWrite.isReadOnly()).isFalse();
+        assertThat(inWrite.getFetchSize()).isNotEqualTo(123);
+    }
+}
@@ -0,0 +1,80 @@
+package study.querydsl.utils.timeout;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.member.dto.MemberSearchCond;
+import study.querydsl.domain.member.repository.MemberJpaRepository;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hibernate.jpa.SpecHints.HINT_SPEC_QUERY_TIMEOUT;
+
+@SpringBootTest
+@Transactional
+class QueryTimeoutsTest {
+
+    @Autowired
+    QueryTimeouts queryTimeouts;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    EntityManager em;
+
+    @Test
+    public void nestedBudgetHintTest() {
+        //given
+        try (QueryTimeouts.Scope outer = queryTimeouts.open(Duration.ofSeconds(3));
+             QueryTimeouts.Scope inner = queryTimeouts.open(Duration.ofMinutes(1))) {
+
+            //when
+            Query query = queryTimeouts.apply(em.createQuery("select m from Member m"));
+
+            //then
+            // 안쪽 예산이 더 길어도 바깥 예산을 넘지 않는다.
+            assertThat(((Number) query.getHints().get(HINT_SPEC_QUERY_TIMEOUT)).longValue()).isBetween(1000L, 3000L);
+        }
+
+        // 예산 밖에서는 힌트를 붙이지 않는다.
+        assertThat(queryTimeouts.current()).isNull();
+        assertThat(queryTimeouts.apply(em.createQuery("select m from Member m")).getHints())
+                .doesNotContainKey(HINT_SPEC_QUERY_TIMEOUT);
+    }
+
+    @Test
+    public void exhaustedBudgetTest() throws InterruptedException {
+        //given
+        try (QueryTimeouts.Scope ignored = queryTimeouts.open(Duration.ofMillis(1))) {
+            Thread.sleep(10);
+
+            //when //then
+            // 쿼리를 보내지 않고 실패한다. (리포지토리 예외 변환을 거친다)
+            assertThatThrownBy(() -> memberJpaRepository.search(new MemberSearchCond()))
+                    .isInstanceOf(QueryTimeoutException.class);
+        }
+    }
+
+    @Test
+    public void cancelledBudgetTest() {
+        //given
+        QueryTimeouts.Budget budget = queryTimeouts.start(Duration.ofSeconds(10));
+        try (QueryTimeouts.Scope ignored = queryTimeouts.attach(budget)) {
+            memberJpaRepository.search(new MemberSearchCond());
+
+            //when
+            budget.cancel();
+
+            //then
+            assertThatThrownBy(() -> memberJpaRepository.search(new MemberSearchCond()))
+                    .isInstanceOf(QueryTimeoutException.class);
+        } finally {
+            budget.finish();
+        }
+    }
+}
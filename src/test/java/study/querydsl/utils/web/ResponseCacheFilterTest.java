@@ -0,0 +1,98 @@
+package study.querydsl.utils.web;
+
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.member.entity.Member;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class ResponseCacheFilterTest {
+
+    @Autowired
+    ResponseCacheFilter responseCacheFilter;
+    @Autowired
+    ResponseCache responseCache;
+    @Autowired
+    EntityManager em;
+
+    AtomicInteger computed = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        responseCache.invalidate();
+    }
+
+    @Test
+    public void cacheAndNotModifiedTest() throws Exception {
+        //given
+        MockHttpServletResponse first = get("/v3/members?teamName=teamB&page=0&ageGoe=", null);
+        String etag = first.getHeader(HttpHeaders.ETAG);
+
+        //when
+        MockHttpServletResponse reordered = get("/v3/members?page=0&teamName=teamB", null);
+        MockHttpServletResponse notModified = get("/v3/members?teamName=teamB&page=0", etag);
+
+        //then
+        assertThat(computed.get()).isEqualTo(1);
+        assertThat(first.getContentAsString()).isEqualTo("result-1");
+        assertThat(reordered.getContentAsString()).isEqualTo("result-1");
+        assertThat(reordered.getHeader(HttpHeaders.ETAG)).isEqualTo(etag);
+        assertThat(notModified.getStatus()).isEqualTo(HttpServletResponse.SC_NOT_MODIFIED);
+        assertThat(notModified.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    public void invalidateOnWriteTest() throws Exception {
+        //given
+        String etag = get("/v2/members", null).getHeader(HttpHeaders.ETAG);
+
+        //when
+        em.persist(new Member("member1", 10));
+        em.flush();
+        MockHttpServletResponse afterWrite = get("/v2/members", etag);
+
+        //then
+        assertThat(computed.get()).isEqualTo(2);
+        assertThat(afterWrite.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(afterWrite.getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+    }
+
+    private MockHttpServletResponse get(String uri, String ifNoneMatch) throws Exception {
+        String path = uri.contains("?") ? uri.substring(0, uri.indexOf('?')) : uri;
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        if (uri.contains("?")) {
+            for (String pair : uri.substring(uri.indexOf('?') + 1).split("&")) {
+                String[] nameValue = pair.split("=", -1);
+                request.addParameter(nameValue[0], nameValue.length > 1 ? nameValue[1] : "");
+            }
+        }
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        responseCacheFilter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.setContentType("application/json");
+                resp.getWriter().write("result-" + computed.incrementAndGet());
+            }
+        }));
+        return response;
+    }
+}